@@ -0,0 +1,20 @@
+package ndemengel;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Added to the description of a parameter set that failed, then passed once retried (see
+ * {@link WithParameters#retries()}), so that run listeners can tell it from parameter sets passing at once.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Flaky {
+
+	/**
+	 * Number of times the parameter set was run, including the passing one.
+	 */
+	int attempts();
+}
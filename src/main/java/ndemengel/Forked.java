@@ -0,0 +1,37 @@
+package ndemengel;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the parameter sets of a {@link WithParameters} method in child JVMs, so that static state or memory they leak
+ * does not outlive a few of them. Child JVMs are reused from one parameter set to the next, until recycled, and at most
+ * {@link WithParameters#concurrency()} of them run at the same time.
+ * <p>
+ * Child JVMs use the class path of the current one, and run the <code>@BeforeClass</code> and <code>@AfterClass</code>
+ * methods of the test class once each, around the parameter sets they run. Parameter sets are serialized to be sent to
+ * child JVMs, so parameters must be serializable.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Forked {
+
+	/**
+	 * Number of parameter sets a child JVM runs before being replaced by a new one.
+	 */
+	int rowsPerJvm() default 100;
+
+	/**
+	 * Used heap, in megabytes, above which a child JVM is replaced once its current parameter set has run. Heap is then
+	 * measured after a garbage collection following each parameter set, so that only what is still referenced counts.
+	 * Zero means no limit, and no collection.
+	 */
+	int maxHeapMb() default 0;
+
+	/**
+	 * Additional arguments of the child JVMs, like <code>-Xmx256m</code>.
+	 */
+	String[] jvmArgs() default {};
+}
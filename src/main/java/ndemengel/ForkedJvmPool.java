@@ -0,0 +1,252 @@
+package ndemengel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunNotifier;
+
+import ndemengel.ForkedParameterSetRunner.Event;
+import ndemengel.Parameters.FrameworkMethodWithParams;
+
+/**
+ * Child JVMs running the parameter sets of a {@link Forked} method, started when needed and kept between parameter
+ * sets until recycled.
+ * <p>
+ * Each child JVM connects back to a local socket, then is sent a serialized parameter set at a time. What happens to
+ * the parameter set is reported as it happens, on the notifier of the current JVM.
+ */
+class ForkedJvmPool {
+
+	private static final long CONNECT_TIMEOUT_MILLIS = 60000;
+
+	private final Class<?> testClass;
+	private final Method method;
+	private final Forked forked;
+	private final Semaphore permits;
+	private final ConcurrentLinkedQueue<ForkedJvm> idleJvms = new ConcurrentLinkedQueue<ForkedJvm>();
+
+	public ForkedJvmPool(Class<?> testClass, Method method, Forked forked, int size) {
+		this.testClass = testClass;
+		this.method = method;
+		this.forked = forked;
+		this.permits = new Semaphore(size);
+	}
+
+	public void run(FrameworkMethodWithParams parameterSet, RunNotifier notifier) {
+		Description description = parameterSet.getDescription();
+		permits.acquireUninterruptibly();
+		ForkedJvm jvm = null;
+		boolean started = false;
+		boolean finished = false;
+		try {
+			// sent rather than read again by the child JVM, which may compute different parameters
+			byte[] params = MappedParameterStore.serialize(parameterSet.getParams());
+			jvm = idleJvms.poll();
+			if (jvm == null) {
+				jvm = start();
+			}
+			jvm.send(params);
+			for (Event event = jvm.receive(); event.type != Event.Type.DONE; event = jvm.receive()) {
+				switch (event.type) {
+				case STARTED:
+					started = true;
+					notifier.fireTestStarted(description);
+					break;
+				case FAILURE:
+					notifier.fireTestFailure(new Failure(description, event.exception));
+					break;
+				case ASSUMPTION_FAILURE:
+					notifier.fireTestAssumptionFailed(new Failure(description, event.exception));
+					break;
+				case IGNORED:
+					notifier.fireTestIgnored(description);
+					break;
+				case FINISHED:
+					finished = true;
+					// null when not measured, which an earlier attempt may have been
+					parameterSet.setLatencies(event.latencies);
+					notifier.fireTestFinished(parameterSet.getDescription());
+					break;
+				default:
+					throw new IOException("Unexpected event from forked JVM: " + event.type);
+				}
+			}
+			jvm.runParameterSets++;
+			if (needsRecycling(jvm)) {
+				jvm.stop();
+			}
+			else {
+				idleJvms.add(jvm);
+			}
+		} catch (Exception e) {
+			if (jvm != null) {
+				jvm.kill();
+			}
+			if (!finished) {
+				if (!started) {
+					notifier.fireTestStarted(description);
+				}
+				notifier.fireTestFailure(new Failure(description, new IllegalStateException(
+						"Forked JVM failed to run parameter set of method \"" + method.getName() + "\"", e)));
+				notifier.fireTestFinished(description);
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	private boolean needsRecycling(ForkedJvm jvm) {
+		return jvm.runParameterSets >= forked.rowsPerJvm()
+				|| forked.maxHeapMb() > 0 && jvm.usedHeap > forked.maxHeapMb() * 1024L * 1024L;
+	}
+
+	public void close() {
+		for (ForkedJvm jvm = idleJvms.poll(); jvm != null; jvm = idleJvms.poll()) {
+			jvm.stop();
+		}
+	}
+
+	private ForkedJvm start() throws IOException, ClassNotFoundException, InterruptedException {
+		ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		try {
+			List<String> command = new ArrayList<String>();
+			command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+			command.addAll(Arrays.asList(forked.jvmArgs()));
+			command.add("-D" + ForkedParameterSetRunner.FORKED_CHILD_PROPERTY + "=true");
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(ForkedParameterSetRunner.class.getName());
+			command.add(String.valueOf(server.getLocalPort()));
+			command.add(testClass.getName());
+			command.add(method.toString());
+			Process process = new ProcessBuilder(command).start();
+			// goes through System.out and System.err, which may be captured, rather than the file descriptors
+			copyInBackground(process.getInputStream(), System.out);
+			copyInBackground(process.getErrorStream(), System.err);
+
+			Socket socket = accept(server, process);
+			ForkedJvm jvm = new ForkedJvm(process, socket, testClass.getClassLoader());
+			Event event = jvm.receive();
+			if (event.type != Event.Type.READY) {
+				jvm.kill();
+				throw new IOException("Forked JVM could not prepare method \"" + method.getName() + "\"", event.exception);
+			}
+			return jvm;
+		} finally {
+			server.close();
+		}
+	}
+
+	private static Socket accept(ServerSocket server, Process process) throws IOException, InterruptedException {
+		server.setSoTimeout(500);
+		long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+		while (true) {
+			try {
+				return server.accept();
+			} catch (SocketTimeoutException e) {
+				if (!process.isAlive()) {
+					throw new IOException("Forked JVM exited with status " + process.waitFor() + " before connecting");
+				}
+				if (System.currentTimeMillis() > deadline) {
+					process.destroyForcibly();
+					throw new IOException("Forked JVM did not connect within " + CONNECT_TIMEOUT_MILLIS + "ms");
+				}
+			}
+		}
+	}
+
+	private static void copyInBackground(final InputStream in, final PrintStream out) {
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				byte[] buffer = new byte[8192];
+				try {
+					for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+						out.write(buffer, 0, read);
+					}
+				} catch (IOException e) {
+					// the JVM is gone
+				}
+			}
+		}, "forked-jvm-output");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private static class ForkedJvm {
+
+		private final Process process;
+		private final Socket socket;
+		private final ObjectOutputStream out;
+		private final ObjectInputStream in;
+		int runParameterSets;
+		long usedHeap;
+
+		public ForkedJvm(Process process, Socket socket, ClassLoader classLoader) throws IOException {
+			this.process = process;
+			this.socket = socket;
+			this.out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			out.flush();
+			// exceptions may be of test classes
+			this.in = new MappedParameterStore.ClassLoaderObjectInputStream(new BufferedInputStream(socket.getInputStream()),
+					classLoader);
+		}
+
+		// null stops the JVM
+		void send(byte[] params) throws IOException {
+			out.writeObject(params);
+			out.flush();
+			out.reset();
+		}
+
+		Event receive() throws IOException, ClassNotFoundException {
+			Event event = (Event) in.readObject();
+			if (event.type == Event.Type.DONE) {
+				usedHeap = event.usedHeap;
+			}
+			return event;
+		}
+
+		void stop() {
+			try {
+				send(null);
+				if (process.waitFor(10, TimeUnit.SECONDS)) {
+					socket.close();
+					return;
+				}
+			} catch (IOException e) {
+				// killed below
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			kill();
+		}
+
+		void kill() {
+			process.destroyForcibly();
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// nothing left to release
+			}
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package ndemengel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.model.FrameworkMethod;
+
+import ndemengel.Parameters.ParameterizedMethodRunner;
+
+/**
+ * Main class of the child JVMs started by {@link ForkedJvmPool}: connects back to the pool, runs the
+ * <code>@BeforeClass</code> methods of the test class, then runs the parameter sets it is sent one at a time, streaming
+ * back what happens to each of them. <code>@AfterClass</code> methods run once the pool stops the JVM.
+ */
+class ForkedParameterSetRunner {
+
+	// set in child JVMs, so that they run parameter sets themselves instead of forking again
+	static final String FORKED_CHILD_PROPERTY = "parameters.forked.child";
+
+	public static void main(String[] args) throws Throwable {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]));
+		ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		out.flush();
+		ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+
+		Method method;
+		ParameterizedMethodRunner runner;
+		try {
+			// the class that was run, which may inherit the method
+			Class<?> testClass = Class.forName(args[1]);
+			method = findMethod(testClass, args[2]);
+			runner = (ParameterizedMethodRunner) new Parameters(testClass).getChild(method);
+			// once per JVM, as parameter sets may rely on class setup
+			invokeAll(runner.getTestClass().getAnnotatedMethods(BeforeClass.class));
+		} catch (Throwable e) {
+			send(out, new Event(Event.Type.ERROR, serializable(e)));
+			socket.close();
+			System.exit(1);
+			return;
+		}
+		send(out, new Event(Event.Type.READY));
+
+		boolean measureHeap = method.getAnnotation(Forked.class).maxHeapMb() > 0;
+		RunNotifier notifier = new RunNotifier();
+		notifier.addListener(new EventSender(out));
+		for (byte[] params = (byte[]) in.readObject(); params != null; params = (byte[]) in.readObject()) {
+			runner.runSingleAttempt(runner.createChild(deserialize(params, runner.getTestClass().getJavaClass())), notifier);
+			send(out, new Event(Event.Type.DONE, null, measureHeap ? usedHeapAfterGc() : 0));
+		}
+
+		try {
+			invokeAll(runner.getTestClass().getAnnotatedMethods(AfterClass.class));
+		} finally {
+			socket.close();
+			// parameter sets may have left non-daemon threads behind
+			System.exit(0);
+		}
+	}
+
+	private static Method findMethod(Class<?> testClass, String methodName) throws NoSuchMethodException {
+		for (Method method : testClass.getMethods()) {
+			if (method.toString().equals(methodName)) {
+				return method;
+			}
+		}
+		throw new NoSuchMethodException(methodName);
+	}
+
+	private static void invokeAll(List<FrameworkMethod> staticMethods) throws Throwable {
+		for (FrameworkMethod m : staticMethods) {
+			m.invokeExplosively(null);
+		}
+	}
+
+	private static Object[] deserialize(byte[] params, Class<?> testClass) throws IOException, ClassNotFoundException {
+		ObjectInputStream in = new MappedParameterStore.ClassLoaderObjectInputStream(new ByteArrayInputStream(params),
+				testClass.getClassLoader());
+		try {
+			return (Object[]) in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	// garbage left by parameter sets is not counted as used
+	private static long usedHeapAfterGc() {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		memory.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	private static void send(ObjectOutputStream out, Event event) throws IOException {
+		out.writeObject(event);
+		out.flush();
+		// events are not referenced again, no need to keep track of them
+		out.reset();
+	}
+
+	// keeps the message and stack trace of exceptions that cannot be sent as they are
+	private static Throwable serializable(Throwable e) {
+		try {
+			new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(e);
+			return e;
+		} catch (IOException notSerializable) {
+			AssertionError copy = new AssertionError(e.toString());
+			copy.setStackTrace(e.getStackTrace());
+			return copy;
+		}
+	}
+
+	private static class EventSender extends RunListener {
+
+		private final ObjectOutputStream out;
+
+		public EventSender(ObjectOutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void testStarted(Description description) throws Exception {
+			send(out, new Event(Event.Type.STARTED));
+		}
+
+		@Override
+		public void testFailure(Failure failure) throws Exception {
+			send(out, new Event(Event.Type.FAILURE, serializable(failure.getException())));
+		}
+
+		@Override
+		public void testAssumptionFailure(Failure failure) {
+			try {
+				send(out, new Event(Event.Type.ASSUMPTION_FAILURE, serializable(failure.getException())));
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public void testIgnored(Description description) throws Exception {
+			send(out, new Event(Event.Type.IGNORED));
+		}
+
+		@Override
+		public void testFinished(Description description) throws Exception {
+			send(out, new Event(Event.Type.FINISHED, description.getAnnotation(Latencies.class)));
+		}
+	}
+
+	static class Event implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		enum Type {
+			READY, ERROR, STARTED, FAILURE, ASSUMPTION_FAILURE, IGNORED, FINISHED, DONE
+		}
+
+		final Type type;
+		final Throwable exception;
+		final long usedHeap;
+		final Latencies latencies;
+
+		public Event(Type type) {
+			this(type, null, 0, null);
+		}
+
+		public Event(Type type, Throwable exception) {
+			this(type, exception, 0, null);
+		}
+
+		public Event(Type type, Throwable exception, long usedHeap) {
+			this(type, exception, usedHeap, null);
+		}
+
+		public Event(Type type, Latencies latencies) {
+			this(type, null, 0, latencies);
+		}
+
+		private Event(Type type, Throwable exception, long usedHeap, Latencies latencies) {
+			this.type = type;
+			this.exception = exception;
+			this.usedHeap = usedHeap;
+			this.latencies = latencies;
+		}
+	}
+}
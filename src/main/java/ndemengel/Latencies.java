@@ -0,0 +1,23 @@
+package ndemengel;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Added to the description of a finished {@link SteadyState} parameter set, with the latencies measured for it, so that
+ * run listeners can report them whether or not thresholds were exceeded. All values are in nanoseconds.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Latencies {
+
+	long p50();
+
+	long p90();
+
+	long p99();
+
+	long max();
+}
@@ -0,0 +1,143 @@
+package ndemengel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps serialized parameter sets in a memory-mapped temporary file, outside of the heap, and deserializes them each
+ * time they are accessed.
+ * <p>
+ * The file is mapped in segments of at most {@link #SEGMENT_SIZE} bytes, a parameter set never spanning two of them.
+ */
+class MappedParameterStore implements ParameterStore {
+
+	static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private final ClassLoader classLoader;
+	private final List<MappedByteBuffer> segments;
+	private final int[] segmentIndexes;
+	private final int[] positions;
+	private final int[] lengths;
+
+	private MappedParameterStore(ClassLoader classLoader, List<MappedByteBuffer> segments, int[] segmentIndexes, int[] positions,
+			int[] lengths) {
+		this.classLoader = classLoader;
+		this.segments = segments;
+		this.segmentIndexes = segmentIndexes;
+		this.positions = positions;
+		this.lengths = lengths;
+	}
+
+	static MappedParameterStore write(Object[][] allParams, ClassLoader classLoader) throws IOException {
+		int[] segmentIndexes = new int[allParams.length];
+		int[] positions = new int[allParams.length];
+		int[] lengths = new int[allParams.length];
+		List<long[]> segmentBounds = new ArrayList<long[]>();
+
+		File file = File.createTempFile("parameters", ".bin");
+		file.deleteOnExit();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			FileChannel channel = raf.getChannel();
+			long segmentStart = 0;
+			long position = 0;
+			for (int i = 0; i < allParams.length; i++) {
+				byte[] bytes = serialize(allParams[i]);
+				if (bytes.length > SEGMENT_SIZE) {
+					throw new IOException("Parameter set #" + i + " takes more than " + SEGMENT_SIZE + " bytes");
+				}
+				if (position + bytes.length - segmentStart > SEGMENT_SIZE) {
+					segmentBounds.add(new long[] { segmentStart, position });
+					segmentStart = position;
+				}
+
+				ByteBuffer buffer = ByteBuffer.wrap(bytes);
+				while (buffer.hasRemaining()) {
+					position += channel.write(buffer, position);
+				}
+				segmentIndexes[i] = segmentBounds.size();
+				positions[i] = (int) (position - bytes.length - segmentStart);
+				lengths[i] = bytes.length;
+			}
+			segmentBounds.add(new long[] { segmentStart, position });
+
+			// mappings stay valid once the channel is closed
+			List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+			for (long[] bounds : segmentBounds) {
+				segments.add(channel.map(FileChannel.MapMode.READ_ONLY, bounds[0], bounds[1] - bounds[0]));
+			}
+			return new MappedParameterStore(classLoader, segments, segmentIndexes, positions, lengths);
+		} finally {
+			raf.close();
+			file.delete();
+		}
+	}
+
+	// also used by ForkedJvmPool
+	static byte[] serialize(Object[] params) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(params);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public int size() {
+		return lengths.length;
+	}
+
+	@Override
+	public Object[] get(int index) {
+		// duplicates the segment so that parameter sets may be read concurrently
+		ByteBuffer segment = segments.get(segmentIndexes[index]).duplicate();
+		segment.position(positions[index]);
+		byte[] bytes = new byte[lengths[index]];
+		segment.get(bytes);
+
+		try {
+			ObjectInputStream in = new ClassLoaderObjectInputStream(new ByteArrayInputStream(bytes), classLoader);
+			try {
+				return (Object[]) in.readObject();
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not read parameter set #" + index, e);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("Could not read parameter set #" + index, e);
+		}
+	}
+
+	// also used by ForkedJvmPool
+	static class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+		private final ClassLoader classLoader;
+
+		public ClassLoaderObjectInputStream(InputStream in, ClassLoader classLoader) throws IOException {
+			super(in);
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			try {
+				return Class.forName(desc.getName(), false, classLoader);
+			} catch (ClassNotFoundException e) {
+				return super.resolveClass(desc);
+			}
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package ndemengel;
+
+/**
+ * Converts the string parameters given to a {@link WithParameters} method into the type of its arguments.
+ * <p>
+ * Implementations are given to {@link WithParameters#converters()}, and need a public no-arg constructor. They may be
+ * called from several threads at once.
+ */
+public interface ParameterConverter<T> {
+
+	Class<T> getTargetType();
+
+	T convert(String value) throws Exception;
+}
@@ -0,0 +1,140 @@
+package ndemengel;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds how to convert string parameters into a given type: using the converters given to {@link WithParameters} when
+ * one of them targets this type, or else a public static <code>valueOf</code>, <code>parse</code>, <code>of</code> or
+ * <code>getInstance</code> method, or a public constructor, taking a single string.
+ */
+class ParameterConverters {
+
+	private static final String[] FACTORY_METHOD_NAMES = { "valueOf", "parse", "of", "getInstance" };
+
+	private final List<ParameterConverter<?>> converters = new ArrayList<ParameterConverter<?>>();
+
+	public ParameterConverters(Class<? extends ParameterConverter<?>>[] converterClasses) throws Exception {
+		for (Class<? extends ParameterConverter<?>> converterClass : converterClasses) {
+			converters.add(converterClass.newInstance());
+		}
+	}
+
+	/**
+	 * @return the converter to the given type, or <code>null</code> if string parameters cannot be converted to it
+	 */
+	public ParameterConverter<?> find(Class<?> targetType) {
+		Class<?> type = wrap(targetType);
+		for (ParameterConverter<?> converter : converters) {
+			if (converter.getTargetType() == type) {
+				return converter;
+			}
+		}
+		if (type == String.class) {
+			return null;
+		}
+
+		MethodHandle handle = findFactoryMethod(type);
+		if (handle == null) {
+			handle = findConstructor(type);
+		}
+		return handle == null ? null : new MethodHandleConverter(type, handle);
+	}
+
+	private static MethodHandle findFactoryMethod(Class<?> type) {
+		for (String name : FACTORY_METHOD_NAMES) {
+			for (Class<?> argType : new Class<?>[] { String.class, CharSequence.class }) {
+				try {
+					Method m = type.getMethod(name, argType);
+					if (Modifier.isStatic(m.getModifiers()) && type.isAssignableFrom(m.getReturnType())) {
+						return MethodHandles.publicLookup().unreflect(m);
+					}
+				} catch (NoSuchMethodException e) {
+					// tries the next one
+				} catch (IllegalAccessException e) {
+					// tries the next one
+				}
+			}
+		}
+		return null;
+	}
+
+	private static MethodHandle findConstructor(Class<?> type) {
+		if (Modifier.isAbstract(type.getModifiers())) {
+			return null;
+		}
+		try {
+			return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class, String.class));
+		} catch (NoSuchMethodException e) {
+			return null;
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	private static Class<?> wrap(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		}
+		if (type == int.class) {
+			return Integer.class;
+		}
+		if (type == long.class) {
+			return Long.class;
+		}
+		if (type == double.class) {
+			return Double.class;
+		}
+		if (type == float.class) {
+			return Float.class;
+		}
+		if (type == boolean.class) {
+			return Boolean.class;
+		}
+		if (type == short.class) {
+			return Short.class;
+		}
+		if (type == byte.class) {
+			return Byte.class;
+		}
+		if (type == char.class) {
+			return Character.class;
+		}
+		return Void.class;
+	}
+
+	private static class MethodHandleConverter implements ParameterConverter<Object> {
+
+		private final Class<Object> targetType;
+		private final MethodHandle handle;
+
+		@SuppressWarnings("unchecked")
+		public MethodHandleConverter(Class<?> targetType, MethodHandle handle) {
+			this.targetType = (Class<Object>) targetType;
+			this.handle = handle.asType(MethodType.methodType(Object.class, String.class));
+		}
+
+		@Override
+		public Class<Object> getTargetType() {
+			return targetType;
+		}
+
+		@Override
+		public Object convert(String value) throws Exception {
+			try {
+				return handle.invokeExact(value);
+			} catch (Exception e) {
+				throw e;
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new RuntimeException(t);
+			}
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package ndemengel;
+
+/**
+ * Where the parameter sets of a method are kept while it runs.
+ */
+interface ParameterStore {
+
+	int size();
+
+	Object[] get(int index);
+}
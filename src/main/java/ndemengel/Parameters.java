@@ -1,41 +1,91 @@
 package ndemengel;
 
+import java.io.IOException;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.junit.runners.ParentRunner;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
 import org.junit.runners.model.Statement;
 import org.junit.runners.model.TestClass;
 
 public class Parameters extends ParentRunner<Object> {
 
+	public static final String RETRY_BUDGET_PROPERTY = "parameters.retry.budget";
+
+	// shared by all test classes, for the whole run
+	static final RetryBudget RUN_RETRY_BUDGET = new RetryBudget(Integer.getInteger(RETRY_BUDGET_PROPERTY, Integer.MAX_VALUE));
+
 	private final List<Object> children;
 
 	public Parameters(Class<?> testClass) throws InitializationError {
+		this(testClass, RUN_RETRY_BUDGET);
+	}
+
+	// a budget other than the run's one is only given by tests
+	Parameters(Class<?> testClass, RetryBudget runRetryBudget) throws InitializationError {
 		super(testClass);
-		children = createChildren();
+		children = createChildren(runRetryBudget);
 	}
 
-	private List<Object> createChildren() throws InitializationError {
+	private List<Object> createChildren(RetryBudget runRetryBudget) throws InitializationError {
 		final TestClass testClass = getTestClass();
 
+		// methods using the same field share its parameters, and the validation of their types
+		Map<String, ParameterTable> tablesByField = new HashMap<String, ParameterTable>();
+
 		List<Object> runners = new ArrayList<Object>();
 		for (final FrameworkMethod m : testClass.getAnnotatedMethods(Test.class)) {
 			WithParameters withParams = m.getAnnotation(WithParameters.class);
+			if (withParams != null && withParams.concurrency() < 1) {
+				throw new InitializationError("Concurrency of method \"" + m.getName() + "\" must be at least 1");
+			}
+			if (withParams != null && withParams.retries() < 0) {
+				throw new InitializationError("Retries of method \"" + m.getName() + "\" must not be negative");
+			}
+			if (withParams == null && m.getAnnotation(SteadyState.class) != null) {
+				throw new InitializationError("Method \"" + m.getName() + "\" must use @WithParameters to use @SteadyState");
+			}
+			if (withParams == null && m.getAnnotation(Forked.class) != null) {
+				throw new InitializationError("Method \"" + m.getName() + "\" must use @WithParameters to use @Forked");
+			}
 			if (withParams == null) {
 				runners.add(new JUnit4MethodRunner(testClass.getJavaClass(), m));
 			}
 			else {
-				Object[][] parameters = getParameters(withParams.value(), testClass);
-				runners.add(new ParameterizedMethodRunner(m, testClass.getJavaClass(), withParams.value(), parameters));
+				ParameterTable parameters = tablesByField.get(withParams.value());
+				if (parameters == null) {
+					parameters = new ParameterTable(withParams.value(), getParameters(withParams.value(), testClass));
+					tablesByField.put(withParams.value(), parameters);
+				}
+				ParameterizedMethodRunner runner = new ParameterizedMethodRunner(m, testClass.getJavaClass(), parameters, withParams,
+						runRetryBudget);
+				if (withParams.concurrency() > 1) {
+					runner.setScheduler(new ConcurrentRowScheduler(withParams.concurrency()));
+				}
+				runners.add(runner);
 			}
 		}
 		return runners;
@@ -46,6 +96,18 @@ public class Parameters extends ParentRunner<Object> {
 		return children;
 	}
 
+	// used by ParametersTestEngine
+	Object getChild(Method method) {
+		for (Object child : children) {
+			FrameworkMethod testMethod = child instanceof JUnit4MethodRunner ? ((JUnit4MethodRunner) child).testMethod
+					: ((ParameterizedMethodRunner) child).testMethod;
+			if (testMethod.getMethod().equals(method)) {
+				return child;
+			}
+		}
+		return null;
+	}
+
 	@Override
 	protected Description describeChild(Object child) {
 		if (child instanceof JUnit4MethodRunner) {
@@ -109,15 +171,85 @@ public class Parameters extends ParentRunner<Object> {
 	static class ParameterizedMethodRunner extends JUnit4ClassRunner {
 
 		private final FrameworkMethod testMethod;
-		private final String paramField;
-		private final Object[][] allParams;
-
-		public ParameterizedMethodRunner(FrameworkMethod testMethod, Class<?> testClass, String paramField, Object[][] allParams) throws InitializationError {
+		private final ParameterStore allParams;
+		private final int skippedDuplicates;
+		private final Class<? extends ParameterConverter<?>>[] converterClasses;
+		private final ParameterConverter<?>[] converters;
+		private final SteadyStateMeasurement steadyState;
+		private final int retries;
+		private RetryBudget retryBudget;
+		private final RetryBudget runRetryBudget;
+		private final List<FailedAttempt> failedAttempts = Collections.synchronizedList(new ArrayList<FailedAttempt>());
+		// null unless forked, and not already running in a forked JVM
+		private final ForkedJvmPool forkedJvms;
+
+		public ParameterizedMethodRunner(FrameworkMethod testMethod, Class<?> testClass, ParameterTable table, WithParameters withParams,
+				RetryBudget runRetryBudget) throws InitializationError {
 			super(testClass);
 			this.testMethod = testMethod;
-			this.paramField = paramField;
-			this.allParams = allParams;
-			validateParams();
+			this.converterClasses = withParams.converters();
+			this.converters = findConverters();
+			this.steadyState = createSteadyStateMeasurement();
+			this.retries = withParams.retries();
+			this.retryBudget = new RetryBudget(retries);
+			this.runRetryBudget = runRetryBudget;
+			this.forkedJvms = createForkedJvmPool(withParams.concurrency());
+
+			Object[][] params = withParams.skipDuplicates() ? table.getDistinctParams() : table.getAllParams();
+			this.skippedDuplicates = table.getAllParams().length - params.length;
+			validateParams(table, params);
+			// the table is not kept, so that off-heap parameters are no longer referenced once stored
+			this.allParams = withParams.offHeap() ? storeOffHeap(table, params, withParams.skipDuplicates())
+					: new ArrayParameterStore(params);
+		}
+
+		private ParameterStore storeOffHeap(ParameterTable table, Object[][] params, boolean skipDuplicates)
+				throws InitializationError {
+			try {
+				return table.getMappedStore(params, skipDuplicates, getTestClass().getJavaClass().getClassLoader());
+			} catch (IOException e) {
+				throw new InitializationError("Could not store parameters of method \"" + testMethod.getName() + "\" off-heap: " + e);
+			}
+		}
+
+		private ForkedJvmPool createForkedJvmPool(int size) throws InitializationError {
+			Forked forked = testMethod.getAnnotation(Forked.class);
+			if (forked == null || Boolean.getBoolean(ForkedParameterSetRunner.FORKED_CHILD_PROPERTY)) {
+				return null;
+			}
+			if (forked.rowsPerJvm() < 1) {
+				throw new InitializationError("Rows per JVM of method \"" + testMethod.getName() + "\" must be at least 1");
+			}
+			return new ForkedJvmPool(getTestClass().getJavaClass(), testMethod.getMethod(), forked, size);
+		}
+
+		private SteadyStateMeasurement createSteadyStateMeasurement() throws InitializationError {
+			SteadyState steadyState = testMethod.getAnnotation(SteadyState.class);
+			if (steadyState == null) {
+				return null;
+			}
+			try {
+				return new SteadyStateMeasurement(steadyState);
+			} catch (IllegalArgumentException e) {
+				throw new InitializationError("Invalid @SteadyState on method \"" + testMethod.getName() + "\": " + e.getMessage());
+			}
+		}
+
+		// resolved once per method, rather than for each parameter
+		private ParameterConverter<?>[] findConverters() throws InitializationError {
+			ParameterConverters registry;
+			try {
+				registry = new ParameterConverters(converterClasses);
+			} catch (Exception e) {
+				throw new InitializationError("Could not create converters of method \"" + testMethod.getName() + "\": " + e);
+			}
+
+			Class<?>[] paramTypes = testMethod.getMethod().getParameterTypes();
+			ParameterConverter<?>[] result = new ParameterConverter<?>[paramTypes.length];
+			for (int i = 0; i < paramTypes.length; i++) {
+				result[i] = registry.find(paramTypes[i]);
+			}
+			return result;
 		}
 
 		@Override
@@ -125,10 +257,10 @@ public class Parameters extends ParentRunner<Object> {
 			// does not call parent validation: class has already been validated by ParamsRunner
 		}
 
-		private void validateParams() throws InitializationError {
+		private void validateParams(ParameterTable table, Object[][] allParams) throws InitializationError {
 			List<Throwable> errors = new ArrayList<Throwable>();
 			if (allParams.length == 0) {
-				errors.add(new Exception("Field \"" + paramField + "\" was expected to define parameters"));
+				errors.add(new Exception("Field \"" + table.getField() + "\" was expected to define parameters"));
 			}
 
 			Class<?>[] expectedParamTypes = testMethod.getMethod().getParameterTypes();
@@ -138,6 +270,12 @@ public class Parameters extends ParentRunner<Object> {
 				errors.add(new Exception("Method \"" + testMethod.getName() + "\" takes no arguments"));
 			}
 
+			List<Object> signature = new ArrayList<Object>(Arrays.asList(expectedParamTypes));
+			signature.add(Arrays.asList(converterClasses));
+			if (errors.isEmpty() && table.isValidFor(signature)) {
+				return;
+			}
+
 			for (Object[] params : allParams) {
 				int actualParamCount = params.length;
 				if (expectedParamCount != actualParamCount) {
@@ -149,7 +287,7 @@ public class Parameters extends ParentRunner<Object> {
 					for (int i = 0; i < expectedParamCount; i++) {
 						Class<?> expectedType = expectedParamTypes[i];
 						Object param = params[i];
-						if (param != null && !expectedType.isInstance(param)) {
+						if (param != null && !expectedType.isInstance(param) && !(param instanceof String && converters[i] != null)) {
 							errors.add(new Exception("Parameter <" + param + "> should be a <" + expectedType + ">"));
 						}
 					}
@@ -159,6 +297,7 @@ public class Parameters extends ParentRunner<Object> {
 			if (!errors.isEmpty()) {
 				throw new InitializationError(errors);
 			}
+			table.setValidFor(signature);
 		}
 
 		@Override
@@ -169,12 +308,131 @@ public class Parameters extends ParentRunner<Object> {
 		@Override
 		protected List<FrameworkMethod> getChildren() {
 			ArrayList<FrameworkMethod> children = new ArrayList<FrameworkMethod>();
-			for (Object[] params : allParams) {
-				children.add(new FrameworkMethodWithParams(getTestClass().getJavaClass(), testMethod, params));
+			for (int i = 0; i < allParams.size(); i++) {
+				children.add(createChild(i));
 			}
 			return children;
 		}
 
+		// lets ParametersTestEngine create children one at a time
+		int getParameterSetCount() {
+			return allParams.size();
+		}
+
+		FrameworkMethodWithParams createChild(int index) {
+			return new FrameworkMethodWithParams(getTestClass().getJavaClass(), testMethod, allParams, index, converters, steadyState);
+		}
+
+		// lets ForkedParameterSetRunner run the parameter sets it is sent, rather than its own ones
+		FrameworkMethodWithParams createChild(Object[] params) {
+			return new FrameworkMethodWithParams(getTestClass().getJavaClass(), testMethod, new ArrayParameterStore(
+					new Object[][] { params }), 0, converters, steadyState);
+		}
+
+		@Override
+		protected Statement childrenInvoker(final RunNotifier notifier) {
+			final Statement runChildren = super.childrenInvoker(notifier);
+			return new Statement() {
+				@Override
+				public void evaluate() throws Throwable {
+					resetRetryBudget();
+					try {
+						runChildren.evaluate();
+						retryFailedAttempts(notifier);
+					} finally {
+						closeForkedJvms();
+					}
+				}
+			};
+		}
+
+		@Override
+		protected void runChild(FrameworkMethod method, RunNotifier notifier) {
+			if (retries == 0) {
+				runSingleAttempt(method, notifier);
+				return;
+			}
+
+			// failures are only reported once retries have been given a chance
+			RecordingNotifier attempt = runAttempt(method, notifier, false);
+			if (attempt.hasFailed()) {
+				failedAttempts.add(new FailedAttempt(method, attempt));
+			}
+			else {
+				attempt.replayTo(notifier, null);
+			}
+		}
+
+		private RecordingNotifier runAttempt(FrameworkMethod method, RunNotifier notifier, boolean retried) {
+			RecordingNotifier attempt = new RecordingNotifier(notifier, retried);
+			runSingleAttempt(method, attempt);
+			return attempt;
+		}
+
+		// also used by ForkedParameterSetRunner, in the JVMs it runs in
+		void runSingleAttempt(FrameworkMethod method, RunNotifier notifier) {
+			if (forkedJvms == null || method.getAnnotation(Ignore.class) != null) {
+				super.runChild(method, steadyState == null ? notifier
+						: new LatencyReportingNotifier(notifier, (FrameworkMethodWithParams) method));
+				return;
+			}
+			forkedJvms.run((FrameworkMethodWithParams) method, notifier);
+		}
+
+		private void retryFailedAttempts(RunNotifier notifier) {
+			List<FailedAttempt> toRetry;
+			synchronized (failedAttempts) {
+				toRetry = new ArrayList<FailedAttempt>(failedAttempts);
+				failedAttempts.clear();
+			}
+			for (FailedAttempt failed : toRetry) {
+				retry(failed.method, failed.attempt, notifier);
+			}
+		}
+
+		private void retry(FrameworkMethod method, RecordingNotifier failedAttempt, RunNotifier notifier) {
+			RecordingNotifier attempt = failedAttempt;
+			int attempts = 1;
+			while (attempt.hasFailed() && consumeRetry()) {
+				attempt = runAttempt(method, notifier, true);
+				attempts++;
+			}
+			Description flakyDescription = attempts > 1 && !attempt.hasFailed()
+					? ((FrameworkMethodWithParams) method).getFlakyDescription(attempts) : null;
+			attempt.replayTo(notifier, flakyDescription);
+		}
+
+		private boolean consumeRetry() {
+			if (!retryBudget.consume()) {
+				return false;
+			}
+			if (!runRetryBudget.consume()) {
+				retryBudget.refund();
+				return false;
+			}
+			return true;
+		}
+
+		// used by ParametersTestEngine, which has no end of method to delay retries to
+		void resetRetryBudget() {
+			retryBudget = new RetryBudget(retries);
+		}
+
+		void runChildRetryingAtOnce(FrameworkMethod method, RunNotifier notifier) {
+			RecordingNotifier attempt = runAttempt(method, notifier, false);
+			retry(method, attempt, notifier);
+		}
+
+		boolean hasForkedJvms() {
+			return forkedJvms != null;
+		}
+
+		void closeForkedJvms() {
+			if (forkedJvms != null) {
+				forkedJvms.close();
+			}
+		}
+
 		@Override
 		protected Description describeChild(FrameworkMethod child) {
 			return ((FrameworkMethodWithParams) child).getDescription();
@@ -182,7 +440,12 @@ public class Parameters extends ParentRunner<Object> {
 
 		@Override
 		public Description getDescription() {
-			Description description = Description.createSuiteDescription(getName(), testMethod.getAnnotations());
+			String name = getName();
+			if (skippedDuplicates > 0) {
+				name += " (" + skippedDuplicates + (skippedDuplicates == 1 ? " duplicate parameter set" : " duplicate parameter sets")
+						+ " skipped)";
+			}
+			Description description = Description.createSuiteDescription(name, testMethod.getAnnotations());
 			for (Description child : super.getDescription().getChildren()) {
 				description.addChild(child);
 			}
@@ -200,19 +463,306 @@ public class Parameters extends ParentRunner<Object> {
 		}
 	}
 
-	private static class FrameworkMethodWithParams extends FrameworkMethod {
+	/**
+	 * Parameters defined by a field, with what has been computed from them so far.
+	 */
+	static class ParameterTable {
+
+		private final String field;
+		private final Object[][] allParams;
+		private Object[][] distinctParams;
+		private final Map<Boolean, MappedParameterStore> mappedStores = new HashMap<Boolean, MappedParameterStore>();
+		private final Set<List<Object>> validSignatures = new HashSet<List<Object>>();
+
+		public ParameterTable(String field, Object[][] allParams) {
+			this.field = field;
+			this.allParams = allParams;
+		}
+
+		public String getField() {
+			return field;
+		}
+
+		public Object[][] getAllParams() {
+			return allParams;
+		}
+
+		public Object[][] getDistinctParams() {
+			if (distinctParams == null) {
+				distinctParams = removeDuplicates(allParams);
+			}
+			return distinctParams;
+		}
+
+		private static Object[][] removeDuplicates(Object[][] allParams) {
+			// wraps the existing rows rather than copying them, so that huge tables stay cheap to deduplicate
+			Set<ParameterSet> distinctParams = new LinkedHashSet<ParameterSet>();
+			for (Object[] params : allParams) {
+				distinctParams.add(new ParameterSet(params));
+			}
+			if (distinctParams.size() == allParams.length) {
+				return allParams;
+			}
+
+			Object[][] result = new Object[distinctParams.size()][];
+			int i = 0;
+			for (ParameterSet params : distinctParams) {
+				result[i++] = params.values;
+			}
+			return result;
+		}
+
+		public MappedParameterStore getMappedStore(Object[][] params, boolean distinct, ClassLoader classLoader) throws IOException {
+			MappedParameterStore store = mappedStores.get(distinct);
+			if (store == null) {
+				store = MappedParameterStore.write(params, classLoader);
+				mappedStores.put(distinct, store);
+			}
+			return store;
+		}
+
+		// distinct parameters are valid whenever all of them are, and conversely
+		public boolean isValidFor(List<Object> signature) {
+			return validSignatures.contains(signature);
+		}
+
+		public void setValidFor(List<Object> signature) {
+			validSignatures.add(signature);
+		}
+	}
+
+	static class RetryBudget {
+
+		private final AtomicInteger remaining;
+
+		public RetryBudget(int retries) {
+			remaining = new AtomicInteger(retries);
+		}
+
+		public boolean consume() {
+			int current;
+			do {
+				current = remaining.get();
+				if (current <= 0) {
+					return false;
+				}
+			} while (!remaining.compareAndSet(current, current - 1));
+			return true;
+		}
+
+		public void refund() {
+			remaining.incrementAndGet();
+		}
+	}
+
+	private static class FailedAttempt {
+
+		private final FrameworkMethod method;
+		private final RecordingNotifier attempt;
+
+		public FailedAttempt(FrameworkMethod method, RecordingNotifier attempt) {
+			this.method = method;
+			this.attempt = attempt;
+		}
+	}
+
+	/**
+	 * Reports the start of a test as it happens, but keeps how it ended, to report it once no more retries are to come.
+	 */
+	private static class RecordingNotifier extends RunNotifier {
+
+		private final RunNotifier notifier;
+		private final boolean retried;
+		private final List<Object> events = new ArrayList<Object>();
+		private boolean failed;
+
+		// the start of retried attempts has already been reported, by the first attempt
+		public RecordingNotifier(RunNotifier notifier, boolean retried) {
+			this.notifier = notifier;
+			this.retried = retried;
+		}
+
+		@Override
+		public void fireTestStarted(Description description) {
+			if (!retried) {
+				notifier.fireTestStarted(description);
+			}
+		}
+
+		@Override
+		public void fireTestFailure(Failure failure) {
+			failed = true;
+			events.add(failure);
+		}
+
+		@Override
+		public void fireTestAssumptionFailed(Failure failure) {
+			events.add(new AssumptionFailure(failure));
+		}
+
+		@Override
+		public void fireTestIgnored(Description description) {
+			notifier.fireTestIgnored(description);
+		}
+
+		@Override
+		public void fireTestFinished(Description description) {
+			events.add(description);
+		}
+
+		public boolean hasFailed() {
+			return failed;
+		}
+
+		public void replayTo(RunNotifier notifier, Description descriptionOverride) {
+			for (Object event : events) {
+				if (event instanceof Failure) {
+					notifier.fireTestFailure((Failure) event);
+				}
+				else if (event instanceof AssumptionFailure) {
+					notifier.fireTestAssumptionFailed(((AssumptionFailure) event).failure);
+				}
+				else {
+					notifier.fireTestFinished(descriptionOverride == null ? (Description) event : descriptionOverride);
+				}
+			}
+		}
+
+		private static class AssumptionFailure {
+			private final Failure failure;
+
+			public AssumptionFailure(Failure failure) {
+				this.failure = failure;
+			}
+		}
+	}
+
+	/**
+	 * Reports the end of a steady-state parameter set with the latencies measured while it ran.
+	 */
+	private static class LatencyReportingNotifier extends RunNotifier {
+
+		private final RunNotifier notifier;
+		private final FrameworkMethodWithParams parameterSet;
+
+		public LatencyReportingNotifier(RunNotifier notifier, FrameworkMethodWithParams parameterSet) {
+			this.notifier = notifier;
+			this.parameterSet = parameterSet;
+		}
+
+		@Override
+		public void fireTestStarted(Description description) {
+			notifier.fireTestStarted(description);
+		}
+
+		@Override
+		public void fireTestFailure(Failure failure) {
+			notifier.fireTestFailure(failure);
+		}
+
+		@Override
+		public void fireTestAssumptionFailed(Failure failure) {
+			notifier.fireTestAssumptionFailed(failure);
+		}
+
+		@Override
+		public void fireTestIgnored(Description description) {
+			notifier.fireTestIgnored(description);
+		}
+
+		@Override
+		public void fireTestFinished(Description description) {
+			notifier.fireTestFinished(parameterSet.getDescription());
+		}
+	}
+
+	private static class FlakyAnnotation implements Flaky {
+
+		private final int attempts;
+
+		public FlakyAnnotation(int attempts) {
+			this.attempts = attempts;
+		}
+
+		public int attempts() {
+			return attempts;
+		}
+
+		public Class<? extends Annotation> annotationType() {
+			return Flaky.class;
+		}
+
+		@Override
+		public String toString() {
+			return "@" + Flaky.class.getName() + "(attempts=" + attempts + ")";
+		}
+	}
+
+	private static class ArrayParameterStore implements ParameterStore {
+
+		private final Object[][] allParams;
+
+		public ArrayParameterStore(Object[][] allParams) {
+			this.allParams = allParams;
+		}
+
+		public int size() {
+			return allParams.length;
+		}
+
+		public Object[] get(int index) {
+			return allParams[index];
+		}
+	}
+
+	private static class ParameterSet {
+
+		private final Object[] values;
+		private final int hashCode;
+
+		public ParameterSet(Object[] values) {
+			this.values = values;
+			this.hashCode = Arrays.deepHashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ParameterSet)) {
+				return false;
+			}
+			ParameterSet other = (ParameterSet) obj;
+			return hashCode == other.hashCode && Arrays.deepEquals(values, other.values);
+		}
+	}
+
+	static class FrameworkMethodWithParams extends FrameworkMethod {
 
 		private final Class<?> testClass;
 		private final FrameworkMethod testMethod;
-		private final Object[] params;
+		private final ParameterStore allParams;
+		private final int index;
+		private final ParameterConverter<?>[] converters;
+		private final SteadyStateMeasurement steadyState;
 		private final String name;
+		// measured by the last steady-state run, if any
+		private volatile Latencies latencies;
 
-		public FrameworkMethodWithParams(Class<?> testClass, FrameworkMethod testMethod, Object[] params) {
+		// only keeps the index of its parameters, which may be stored off-heap
+		public FrameworkMethodWithParams(Class<?> testClass, FrameworkMethod testMethod, ParameterStore allParams, int index,
+				ParameterConverter<?>[] converters, SteadyStateMeasurement steadyState) {
 			super(testMethod.getMethod());
 			this.testClass = testClass;
 			this.testMethod = testMethod;
-			this.params = params;
-			this.name = buildName(testMethod, params);
+			this.allParams = allParams;
+			this.index = index;
+			this.converters = converters;
+			this.steadyState = steadyState;
+			this.name = buildName(testMethod, allParams.get(index));
 		}
 
 		private static String buildName(FrameworkMethod m, Object[] params) {
@@ -226,33 +776,139 @@ public class Parameters extends ParentRunner<Object> {
 			return sb.toString();
 		}
 
+		public String getDisplayName() {
+			return name;
+		}
+
+		public Object[] getParams() {
+			return allParams.get(index);
+		}
+
+		public void setLatencies(Latencies latencies) {
+			this.latencies = latencies;
+		}
+
 		public Description getDescription() {
-			return Description.createTestDescription(testClass, name, testMethod.getAnnotations());
+			return describe(null);
+		}
+
+		// equal to the regular description, so that listeners can match them
+		public Description getFlakyDescription(int attempts) {
+			return describe(new FlakyAnnotation(attempts));
+		}
+
+		private Description describe(Annotation flaky) {
+			List<Annotation> annotations = new ArrayList<Annotation>(Arrays.asList(testMethod.getAnnotations()));
+			if (latencies != null) {
+				annotations.add(latencies);
+			}
+			if (flaky != null) {
+				annotations.add(flaky);
+			}
+			return Description.createTestDescription(testClass, name, annotations.toArray(new Annotation[annotations.size()]));
 		}
 
 		public Statement getInvoker(Object target) {
-			return new InvokeMethodWithParams(testMethod, target, params);
+			return new InvokeMethodWithParams(testMethod, this, target, allParams.get(index), converters, steadyState);
 		}
 	}
 
 	private static class InvokeMethodWithParams extends Statement {
 		private final FrameworkMethod testMethod;
+		private final FrameworkMethodWithParams parameterSet;
 		private final Object target;
 		private final Object[] params;
+		private final ParameterConverter<?>[] converters;
+		private final SteadyStateMeasurement steadyState;
 
-		public InvokeMethodWithParams(FrameworkMethod testMethod, Object target, Object[] params) {
+		public InvokeMethodWithParams(FrameworkMethod testMethod, FrameworkMethodWithParams parameterSet, Object target,
+				Object[] params, ParameterConverter<?>[] converters, SteadyStateMeasurement steadyState) {
 			this.testMethod = testMethod;
+			this.parameterSet = parameterSet;
 			this.target = target;
 			this.params = params;
+			this.converters = converters;
+			this.steadyState = steadyState;
 		}
 
 		@Override
 		public void evaluate() throws Throwable {
-			testMethod.invokeExplosively(target, params);
+			if (steadyState == null) {
+				testMethod.invokeExplosively(target, convertParams());
+			}
+			else {
+				// an earlier attempt may have been measured, but not this one yet
+				parameterSet.setLatencies(null);
+				long[] latencies = steadyState.measure(testMethod, target, convertParams());
+				parameterSet.setLatencies(SteadyStateMeasurement.summarize(latencies));
+				steadyState.checkThresholds(latencies);
+			}
+		}
+
+		private Object[] convertParams() throws Exception {
+			Object[] converted = params;
+			for (int i = 0; i < params.length; i++) {
+				if (params[i] instanceof String && converters[i] != null) {
+					if (converted == params) {
+						converted = params.clone();
+					}
+					converted[i] = convert((String) params[i], converters[i]);
+				}
+			}
+			return converted;
+		}
+
+		private static Object convert(String param, ParameterConverter<?> converter) throws Exception {
+			try {
+				return converter.convert(param);
+			} catch (Exception e) {
+				throw new IllegalArgumentException("Parameter <" + param + "> could not be converted to a <"
+						+ converter.getTargetType() + ">", e);
+			}
+		}
+	}
+
+	/**
+	 * Runs each parameter set in its own thread, with at most <code>concurrency</code> of them at once. Threads are
+	 * virtual when the JVM supports them, so that blocking rows do not tie up platform threads.
+	 */
+	private static class ConcurrentRowScheduler implements RunnerScheduler {
+
+		private final ThreadFactory threadFactory = RowThreads.newFactory();
+		private final int concurrency;
+		private final Semaphore permits;
+
+		public ConcurrentRowScheduler(int concurrency) {
+			this.concurrency = concurrency;
+			this.permits = new Semaphore(concurrency);
+		}
+
+		public void schedule(final Runnable childStatement) {
+			permits.acquireUninterruptibly();
+			try {
+				threadFactory.newThread(new Runnable() {
+					public void run() {
+						try {
+							childStatement.run();
+						} finally {
+							permits.release();
+						}
+					}
+				}).start();
+			} catch (RuntimeException e) {
+				permits.release();
+				throw e;
+			}
+		}
+
+		public void finished() {
+			// waits for all running rows to complete
+			permits.acquireUninterruptibly(concurrency);
+			permits.release(concurrency);
 		}
 	}
 
-	private static class JUnit4MethodRunner {
+	static class JUnit4MethodRunner {
 
 		private final JUnit4ClassRunner runner;
 		private final FrameworkMethod testMethod;
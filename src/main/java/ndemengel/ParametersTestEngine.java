@@ -0,0 +1,408 @@
+package ndemengel;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectMethod;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import ndemengel.Parameters.FrameworkMethodWithParams;
+import ndemengel.Parameters.JUnit4MethodRunner;
+import ndemengel.Parameters.ParameterizedMethodRunner;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.internal.AssumptionViolatedException;
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.DiscoverySelector;
+import org.junit.platform.engine.EngineDiscoveryRequest;
+import org.junit.platform.engine.EngineExecutionListener;
+import org.junit.platform.engine.ExecutionRequest;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.discovery.ClassSelector;
+import org.junit.platform.engine.discovery.MethodSelector;
+import org.junit.platform.engine.discovery.UniqueIdSelector;
+import org.junit.platform.engine.reporting.ReportEntry;
+import org.junit.platform.engine.support.config.PrefixedConfigurationParameters;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.EngineDescriptor;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.engine.support.discovery.EngineDiscoveryRequestResolver;
+import org.junit.platform.engine.support.discovery.SelectorResolver;
+import org.junit.platform.engine.support.hierarchical.EngineExecutionContext;
+import org.junit.platform.engine.support.hierarchical.ForkJoinPoolHierarchicalTestExecutorService;
+import org.junit.platform.engine.support.hierarchical.HierarchicalTestEngine;
+import org.junit.platform.engine.support.hierarchical.HierarchicalTestExecutorService;
+import org.junit.platform.engine.support.hierarchical.Node;
+import org.junit.platform.engine.support.hierarchical.ThrowableCollector;
+import org.junit.runner.Description;
+import org.junit.runner.RunWith;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+import org.opentest4j.TestAbortedException;
+
+/**
+ * JUnit Platform engine running the classes having {@link WithParameters} test methods, as the {@link Parameters}
+ * runner does for JUnit 4.
+ * <p>
+ * Parameter sets are only turned into tests when their method runs, and are reported as dynamic tests. Setting the
+ * <code>parameters.execution.parallel.enabled</code> configuration parameter to <code>true</code> runs them in
+ * parallel, the pool being configured by the <code>parameters.execution.parallel.config.*</code> parameters the same
+ * way Jupiter's is.
+ * <p>
+ * Classes annotated with <code>@RunWith</code>, <code>@RunWith(Parameters.class)</code> included, are not discovered:
+ * they are left to the runner they name, which the Vintage engine uses if it is on the classpath, so that they do not
+ * run twice.
+ */
+public class ParametersTestEngine extends HierarchicalTestEngine<ParametersTestEngine.ExecutionContext> {
+
+	public static final String ENGINE_ID = "parameters";
+
+	public static final String PARALLEL_EXECUTION_ENABLED = "parameters.execution.parallel.enabled";
+	public static final String PARALLEL_CONFIG_PREFIX = "parameters.execution.parallel.config.";
+
+	private static final String CLASS_SEGMENT = "class";
+	private static final String METHOD_SEGMENT = "method";
+	private static final String PARAMETER_SET_SEGMENT = "parameter-set";
+
+	@Override
+	public String getId() {
+		return ENGINE_ID;
+	}
+
+	@Override
+	public TestDescriptor discover(EngineDiscoveryRequest discoveryRequest, UniqueId uniqueId) {
+		EngineDescriptor engineDescriptor = new EngineDescriptor(uniqueId, "JUnit Params");
+		EngineDiscoveryRequestResolver.<EngineDescriptor> builder() //
+				.addClassContainerSelectorResolver(ParametersTestEngine::isParameterizedTestClass) //
+				.addSelectorResolver(new TestClassResolver()) //
+				.build() //
+				.resolve(discoveryRequest, engineDescriptor);
+		return engineDescriptor;
+	}
+
+	static boolean isParameterizedTestClass(Class<?> candidate) {
+		int modifiers = candidate.getModifiers();
+		if (candidate.isInterface() || Modifier.isAbstract(modifiers) || !Modifier.isPublic(modifiers)
+				|| (candidate.isMemberClass() && !Modifier.isStatic(modifiers))
+				|| candidate.isAnnotationPresent(RunWith.class)) {
+			return false;
+		}
+		for (Method m : candidate.getMethods()) {
+			if (m.isAnnotationPresent(Test.class) && m.isAnnotationPresent(WithParameters.class)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected HierarchicalTestExecutorService createExecutorService(ExecutionRequest request) {
+		ConfigurationParameters config = request.getConfigurationParameters();
+		if (config.getBoolean(PARALLEL_EXECUTION_ENABLED).orElse(false)) {
+			return new ForkJoinPoolHierarchicalTestExecutorService(new PrefixedConfigurationParameters(config, PARALLEL_CONFIG_PREFIX));
+		}
+		return super.createExecutorService(request);
+	}
+
+	@Override
+	protected ThrowableCollector.Factory createThrowableCollectorFactory(ExecutionRequest request) {
+		// JUnit 4 assumptions abort tests, as OpenTest4J ones do
+		return () -> new ThrowableCollector(t -> t instanceof TestAbortedException || t instanceof AssumptionViolatedException);
+	}
+
+	@Override
+	protected ExecutionContext createExecutionContext(ExecutionRequest request) {
+		return new ExecutionContext(request.getEngineExecutionListener());
+	}
+
+	static class ExecutionContext implements EngineExecutionContext {
+
+		private final EngineExecutionListener listener;
+
+		ExecutionContext(EngineExecutionListener listener) {
+			this.listener = listener;
+		}
+	}
+
+	private static class TestClassResolver implements SelectorResolver {
+
+		@Override
+		public Resolution resolve(ClassSelector selector, Context context) {
+			Class<?> testClass = selector.getJavaClass();
+			if (!isParameterizedTestClass(testClass)) {
+				return Resolution.unresolved();
+			}
+
+			Optional<ClassDescriptor> classDescriptor = context.addToParent(parent -> Optional.of(new ClassDescriptor(parent
+					.getUniqueId().append(CLASS_SEGMENT, testClass.getName()), testClass)));
+			return classDescriptor.map(d -> Resolution.match(Match.exact(d, () -> selectTestMethods(testClass)))) //
+					.orElse(Resolution.unresolved());
+		}
+
+		private Set<DiscoverySelector> selectTestMethods(Class<?> testClass) {
+			Set<DiscoverySelector> selectors = new LinkedHashSet<DiscoverySelector>();
+			for (FrameworkMethod m : new TestClass(testClass).getAnnotatedMethods(Test.class)) {
+				selectors.add(selectMethod(testClass, m.getMethod()));
+			}
+			return selectors;
+		}
+
+		@Override
+		public Resolution resolve(MethodSelector selector, Context context) {
+			Class<?> testClass = selector.getJavaClass();
+			Method method = selector.getJavaMethod();
+			if (!isParameterizedTestClass(testClass) || !method.isAnnotationPresent(Test.class)) {
+				return Resolution.unresolved();
+			}
+
+			Optional<MethodDescriptor> methodDescriptor = context.addToParent(() -> selectClass(testClass),
+					parent -> Optional.of(((ClassDescriptor) parent).createMethodDescriptor(method)));
+			return methodDescriptor.map(d -> Resolution.match(Match.exact(d))).orElse(Resolution.unresolved());
+		}
+
+		@Override
+		public Resolution resolve(UniqueIdSelector selector, Context context) {
+			// parameter sets are not known before execution: selecting one of them selects its whole method
+			List<UniqueId.Segment> segments = selector.getUniqueId().getSegments();
+			if (segments.size() < 2 || !ENGINE_ID.equals(segments.get(0).getValue())
+					|| !CLASS_SEGMENT.equals(segments.get(1).getType())) {
+				return Resolution.unresolved();
+			}
+
+			String className = segments.get(1).getValue();
+			if (segments.size() > 2 && METHOD_SEGMENT.equals(segments.get(2).getType())) {
+				// "name(type, ...)", as Jupiter does
+				String method = segments.get(2).getValue();
+				int parenthesis = method.indexOf('(');
+				if (parenthesis < 0 || !method.endsWith(")")) {
+					return Resolution.unresolved();
+				}
+				return Resolution.selectors(Collections.singleton(selectMethod(className, method.substring(0, parenthesis),
+						method.substring(parenthesis + 1, method.length() - 1))));
+			}
+			return Resolution.selectors(Collections.singleton(selectClass(className)));
+		}
+	}
+
+	private static class ClassDescriptor extends AbstractTestDescriptor implements Node<ExecutionContext> {
+
+		private final Class<?> testClass;
+		private Parameters runner;
+
+		ClassDescriptor(UniqueId uniqueId, Class<?> testClass) {
+			super(uniqueId, testClass.getSimpleName(), ClassSource.from(testClass));
+			this.testClass = testClass;
+		}
+
+		MethodDescriptor createMethodDescriptor(Method method) {
+			StringBuilder segment = new StringBuilder(method.getName()).append('(');
+			Class<?>[] paramTypes = method.getParameterTypes();
+			for (int i = 0; i < paramTypes.length; i++) {
+				if (i != 0) {
+					segment.append(", ");
+				}
+				segment.append(paramTypes[i].getName());
+			}
+			segment.append(')');
+			return new MethodDescriptor(getUniqueId().append(METHOD_SEGMENT, segment.toString()), testClass, method, this);
+		}
+
+		Object getChild(Method method) {
+			return runner.getChild(method);
+		}
+
+		@Override
+		public Type getType() {
+			return Type.CONTAINER;
+		}
+
+		@Override
+		public ExecutionContext before(ExecutionContext context) throws Exception {
+			// created when the class runs rather than at discovery, as it reads, validates and may store parameters
+			runner = new Parameters(testClass);
+			for (FrameworkMethod m : runner.getTestClass().getAnnotatedMethods(BeforeClass.class)) {
+				invoke(m);
+			}
+			return context;
+		}
+
+		@Override
+		public void after(ExecutionContext context) throws Exception {
+			if (runner == null) {
+				return;
+			}
+			for (FrameworkMethod m : runner.getTestClass().getAnnotatedMethods(AfterClass.class)) {
+				invoke(m);
+			}
+		}
+
+		private static void invoke(FrameworkMethod staticMethod) throws Exception {
+			try {
+				staticMethod.invokeExplosively(null);
+			} catch (Throwable t) {
+				rethrow(t);
+			}
+		}
+	}
+
+	private static class MethodDescriptor extends AbstractTestDescriptor implements Node<ExecutionContext> {
+
+		private final Method method;
+		private final ClassDescriptor classDescriptor;
+
+		MethodDescriptor(UniqueId uniqueId, Class<?> testClass, Method method, ClassDescriptor classDescriptor) {
+			super(uniqueId, method.getName(), MethodSource.from(testClass, method));
+			this.method = method;
+			this.classDescriptor = classDescriptor;
+		}
+
+		@Override
+		public Type getType() {
+			return method.isAnnotationPresent(WithParameters.class) ? Type.CONTAINER : Type.TEST;
+		}
+
+		@Override
+		public boolean mayRegisterTests() {
+			// keeps parameterized methods from being pruned at discovery, as they have no children yet
+			return isContainer();
+		}
+
+		@Override
+		public SkipResult shouldBeSkipped(ExecutionContext context) {
+			Ignore ignore = method.getAnnotation(Ignore.class);
+			if (ignore != null) {
+				return SkipResult.skip(ignore.value());
+			}
+			return SkipResult.doNotSkip();
+		}
+
+		@Override
+		public ExecutionContext execute(ExecutionContext context, DynamicTestExecutor dynamicTestExecutor) throws Exception {
+			Object child = classDescriptor.getChild(method);
+			if (child instanceof JUnit4MethodRunner) {
+				final JUnit4MethodRunner runner = (JUnit4MethodRunner) child;
+				runWithJUnit4(notifier -> runner.runChild(notifier), finished -> {
+				});
+				return context;
+			}
+
+			// parameter sets are created one at a time, and handed to the executor which may run them in parallel
+			ParameterizedMethodRunner runner = (ParameterizedMethodRunner) child;
+			runner.resetRetryBudget();
+			for (int i = 0; i < runner.getParameterSetCount(); i++) {
+				FrameworkMethodWithParams parameterSet = runner.createChild(i);
+				ParameterSetDescriptor descriptor = new ParameterSetDescriptor(getUniqueId().append(PARAMETER_SET_SEGMENT,
+						"#" + i), parameterSet, runner);
+				addChild(descriptor);
+				dynamicTestExecutor.execute(descriptor);
+			}
+			if (runner.hasForkedJvms()) {
+				dynamicTestExecutor.awaitFinished();
+				runner.closeForkedJvms();
+			}
+			return context;
+		}
+	}
+
+	private static class ParameterSetDescriptor extends AbstractTestDescriptor implements Node<ExecutionContext> {
+
+		private final FrameworkMethodWithParams parameterSet;
+		private final ParameterizedMethodRunner runner;
+
+		ParameterSetDescriptor(UniqueId uniqueId, FrameworkMethodWithParams parameterSet, ParameterizedMethodRunner runner) {
+			super(uniqueId, parameterSet.getDisplayName(), MethodSource.from(runner.getTestClass().getJavaClass(),
+					parameterSet.getMethod()));
+			this.parameterSet = parameterSet;
+			this.runner = runner;
+		}
+
+		@Override
+		public Type getType() {
+			return Type.TEST;
+		}
+
+		@Override
+		public ExecutionContext execute(ExecutionContext context, DynamicTestExecutor dynamicTestExecutor) throws Exception {
+			// retried at once, as there is no end of method to delay retries to
+			runWithJUnit4(notifier -> runner.runChildRetryingAtOnce(parameterSet, notifier), finished -> {
+				Flaky flaky = finished.getAnnotation(Flaky.class);
+				if (flaky != null) {
+					context.listener.reportingEntryPublished(this, ReportEntry.from("flaky", "passed after " + flaky.attempts()
+							+ " attempts"));
+				}
+				// published whether or not thresholds were exceeded
+				Latencies latencies = finished.getAnnotation(Latencies.class);
+				if (latencies != null) {
+					context.listener.reportingEntryPublished(this, ReportEntry.from("latencies", SteadyStateMeasurement
+							.summary(latencies)));
+				}
+			});
+			return context;
+		}
+	}
+
+	private interface JUnit4Execution {
+		void run(RunNotifier notifier);
+	}
+
+	/**
+	 * Runs a single JUnit 4 test, and rethrows what made it fail so that the platform reports it.
+	 *
+	 * @param finished given the description the test finished with, which tells how it was flaky or how long it took
+	 */
+	private static void runWithJUnit4(JUnit4Execution execution, Consumer<Description> finished) throws Exception {
+		final List<Throwable> failures = new ArrayList<Throwable>();
+		RunNotifier notifier = new RunNotifier();
+		notifier.addListener(new RunListener() {
+			@Override
+			public void testFinished(Description description) {
+				finished.accept(description);
+			}
+
+			@Override
+			public void testFailure(Failure failure) {
+				failures.add(failure.getException());
+			}
+
+			@Override
+			public void testAssumptionFailure(Failure failure) {
+				failures.add(failure.getException());
+			}
+		});
+
+		execution.run(notifier);
+
+		if (!failures.isEmpty()) {
+			Throwable failure = failures.get(0);
+			for (Throwable other : failures.subList(1, failures.size())) {
+				failure.addSuppressed(other);
+			}
+			rethrow(failure);
+		}
+	}
+
+	private static void rethrow(Throwable t) throws Exception {
+		if (t instanceof Exception) {
+			throw (Exception) t;
+		}
+		if (t instanceof Error) {
+			throw (Error) t;
+		}
+		throw new RuntimeException(t);
+	}
+}
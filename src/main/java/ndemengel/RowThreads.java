@@ -0,0 +1,32 @@
+package ndemengel;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Provides the threads parameter sets run in when they are run concurrently.
+ * <p>
+ * This is the baseline implementation, it is replaced by <code>src/main/java21</code> in the multi-release JAR.
+ */
+class RowThreads {
+
+	private RowThreads() {
+	}
+
+	// tells the tests which variant was loaded
+	static String variant() {
+		return "baseline";
+	}
+
+	static ThreadFactory newFactory() {
+		try {
+			// Thread.ofVirtual().factory(), looked up reflectively for when classes are not loaded from the JAR
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+			return (ThreadFactory) factory.invoke(builder);
+		} catch (Exception e) {
+			return Executors.defaultThreadFactory();
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package ndemengel;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs each parameter set of a {@link WithParameters} method a number of times to warm it up, then measures the latency
+ * of further runs, failing the parameter set if the measured percentiles exceed the given thresholds.
+ * <p>
+ * Thresholds look like <code>"p99 &lt; 2ms"</code>, with <code>ns</code>, <code>us</code>, <code>ms</code> or
+ * <code>s</code> as unit. Measured latencies are reported for each parameter set, with or without thresholds, by adding
+ * {@link Latencies} to the description it finishes with.
+ * <p>
+ * The same test instance is used for all the runs of a parameter set, so that <code>@Before</code> and
+ * <code>@After</code> methods only run once around them.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface SteadyState {
+
+	int warmups() default 100;
+
+	int iterations() default 1000;
+
+	String[] thresholds() default {};
+}
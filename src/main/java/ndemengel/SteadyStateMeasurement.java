@@ -0,0 +1,177 @@
+package ndemengel;
+
+import java.io.Serializable;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.runners.model.FrameworkMethod;
+
+/**
+ * Runs a parameter set as described by {@link SteadyState}. Thresholds are parsed once per method.
+ */
+class SteadyStateMeasurement {
+
+	private static final Pattern THRESHOLD = Pattern.compile("\\s*p(\\d+(?:\\.\\d+)?)\\s*<\\s*(\\d+(?:\\.\\d+)?)\\s*(ns|us|ms|s)\\s*");
+
+	private final int warmups;
+	private final int iterations;
+	private final List<Threshold> thresholds = new ArrayList<Threshold>();
+
+	public SteadyStateMeasurement(SteadyState steadyState) {
+		this.warmups = steadyState.warmups();
+		this.iterations = steadyState.iterations();
+		if (warmups < 0) {
+			throw new IllegalArgumentException("Warm-up iterations must not be negative");
+		}
+		if (iterations < 1) {
+			throw new IllegalArgumentException("Measured iterations must be at least 1");
+		}
+		for (String threshold : steadyState.thresholds()) {
+			thresholds.add(Threshold.parse(threshold));
+		}
+	}
+
+	/**
+	 * @return the measured latencies, sorted
+	 */
+	public long[] measure(FrameworkMethod testMethod, Object target, Object[] params) throws Throwable {
+		for (int i = 0; i < warmups; i++) {
+			testMethod.invokeExplosively(target, params);
+		}
+
+		long[] latencies = new long[iterations];
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			testMethod.invokeExplosively(target, params);
+			latencies[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(latencies);
+		return latencies;
+	}
+
+	public void checkThresholds(long[] sortedLatencies) {
+		for (Threshold threshold : thresholds) {
+			long latency = percentile(sortedLatencies, threshold.percentile);
+			if (latency >= threshold.maxNanos) {
+				throw new AssertionError(threshold.name + " of " + format(latency) + " is not below " + format(threshold.maxNanos)
+						+ " (" + summary(summarize(sortedLatencies)) + ")");
+			}
+		}
+	}
+
+	// nearest-rank method
+	private static long percentile(long[] sortedLatencies, double percentile) {
+		int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+		return sortedLatencies[Math.max(rank, 1) - 1];
+	}
+
+	public static Latencies summarize(long[] sortedLatencies) {
+		return new MeasuredLatencies(percentile(sortedLatencies, 50), percentile(sortedLatencies, 90),
+				percentile(sortedLatencies, 99), sortedLatencies[sortedLatencies.length - 1]);
+	}
+
+	public static String summary(Latencies latencies) {
+		return "p50=" + format(latencies.p50()) + ", p90=" + format(latencies.p90()) + ", p99=" + format(latencies.p99())
+				+ ", max=" + format(latencies.max());
+	}
+
+	private static String format(long nanos) {
+		if (nanos < 1000L) {
+			return nanos + "ns";
+		}
+		if (nanos < 1000000L) {
+			return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+		}
+		if (nanos < 1000000000L) {
+			return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+		}
+		return String.format(Locale.ROOT, "%.1fs", nanos / 1e9);
+	}
+
+	// serializable, to be sent back by forked JVMs
+	private static class MeasuredLatencies implements Latencies, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long p50;
+		private final long p90;
+		private final long p99;
+		private final long max;
+
+		public MeasuredLatencies(long p50, long p90, long p99, long max) {
+			this.p50 = p50;
+			this.p90 = p90;
+			this.p99 = p99;
+			this.max = max;
+		}
+
+		public long p50() {
+			return p50;
+		}
+
+		public long p90() {
+			return p90;
+		}
+
+		public long p99() {
+			return p99;
+		}
+
+		public long max() {
+			return max;
+		}
+
+		public Class<? extends Annotation> annotationType() {
+			return Latencies.class;
+		}
+
+		@Override
+		public String toString() {
+			return "@" + Latencies.class.getName() + "(p50=" + p50 + ", p90=" + p90 + ", p99=" + p99 + ", max=" + max + ")";
+		}
+	}
+
+	private static class Threshold {
+
+		private final String name;
+		private final double percentile;
+		private final long maxNanos;
+
+		private Threshold(String name, double percentile, long maxNanos) {
+			this.name = name;
+			this.percentile = percentile;
+			this.maxNanos = maxNanos;
+		}
+
+		static Threshold parse(String threshold) {
+			Matcher m = THRESHOLD.matcher(threshold);
+			if (!m.matches()) {
+				throw new IllegalArgumentException("Threshold \"" + threshold + "\" should look like \"p99 < 2ms\"");
+			}
+
+			double percentile = Double.parseDouble(m.group(1));
+			if (percentile <= 0 || percentile > 100) {
+				throw new IllegalArgumentException("Threshold \"" + threshold + "\" should use a percentile in ]0, 100]");
+			}
+			return new Threshold("p" + m.group(1), percentile, toNanos(Double.parseDouble(m.group(2)), m.group(3)));
+		}
+
+		private static long toNanos(double value, String unit) {
+			if (unit.equals("ns")) {
+				return (long) value;
+			}
+			if (unit.equals("us")) {
+				return (long) (value * 1e3);
+			}
+			if (unit.equals("ms")) {
+				return (long) (value * 1e6);
+			}
+			return (long) (value * 1e9);
+		}
+	}
+}
@@ -10,4 +10,35 @@ import java.lang.annotation.Target;
 public @interface WithParameters {
 
 	String value();
+
+	/**
+	 * Runs identical parameter sets (compared with {@link java.util.Arrays#deepEquals(Object[], Object[])}) only once.
+	 */
+	boolean skipDuplicates() default false;
+
+	/**
+	 * Maximum number of parameter sets run at the same time, each in its own (virtual, when available) thread.
+	 */
+	int concurrency() default 1;
+
+	/**
+	 * Converters for string parameters given to arguments of another type. Without one, strings are converted through
+	 * a public static <code>valueOf</code>, <code>parse</code>, <code>of</code> or <code>getInstance</code> method, or
+	 * a public constructor, taking a single string.
+	 */
+	Class<? extends ParameterConverter<?>>[] converters() default {};
+
+	/**
+	 * Keeps the parameter sets serialized in a memory-mapped file while the method runs, reading them back when needed,
+	 * instead of referencing them from the heap. Parameters must then be serializable. The runner then keeps no copy of
+	 * them, but the parameter field still references its own arrays, unless the test class drops them.
+	 */
+	boolean offHeap() default false;
+
+	/**
+	 * Number of times failed parameter sets of the method may be retried, all together. Retries happen once every
+	 * parameter set has run, and are also limited for the whole run by the <code>parameters.retry.budget</code> system
+	 * property. Parameter sets passing once retried are reported with {@link Flaky}.
+	 */
+	int retries() default 0;
 }
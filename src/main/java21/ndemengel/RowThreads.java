@@ -0,0 +1,20 @@
+package ndemengel;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Provides the threads parameter sets run in when they are run concurrently: virtual threads, as of Java 21.
+ */
+class RowThreads {
+
+	private RowThreads() {
+	}
+
+	static String variant() {
+		return "java21";
+	}
+
+	static ThreadFactory newFactory() {
+		return Thread.ofVirtual().factory();
+	}
+}
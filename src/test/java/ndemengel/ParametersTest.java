@@ -5,10 +5,29 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import ndemengel.Parameters.ParameterizedMethodRunner;
+import ndemengel.Parameters.RetryBudget;
 
+import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.Description;
@@ -17,6 +36,7 @@ import org.junit.runner.notification.Failure;
 import org.junit.runner.notification.RunListener;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.model.InitializationError;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 
 @SuppressWarnings("unused")
@@ -276,242 +296,1104 @@ public class ParametersTest {
 		verifyNoMoreInteractions(listener);
 	}
 
-	public static class TestCaseWithIgnoredParameterizedTest {
+	public static class TestCaseWithDuplicateParams {
 
-		static Integer[][] someParams = { { 1 }, { 2 }, { 3 } };
+		static Object[][] someParams = { { 1, "a" }, { 2, "b" }, { 1, "a" }, { 1, "b" }, { 2, "b" } };
 
 		@Test
-		@Ignore
-		@WithParameters("someParams")
-		public void testWithParams(Integer arg) {
-			if (arg == 2) {
-				fail("test failure");
-			}
+		@WithParameters(value = "someParams", skipDuplicates = true)
+		public void testWithParams(Integer arg1, String arg2) {
 		}
 	}
 
 	@Test
-	public void should_report_ignored_parameterized_tests() throws Exception {
+	public void should_run_duplicate_parameter_sets_once_when_asked_to() throws Exception {
 		// given
-		Parameters runner = new Parameters(TestCaseWithIgnoredParameterizedTest.class);
+		Parameters runner = new Parameters(TestCaseWithDuplicateParams.class);
 
 		// when
 		runner.run(notifier);
 
 		// then
-		verify(listener).testIgnored(anyDescriptionStartingWith("testWithParams 1"));
-		verify(listener).testIgnored(anyDescriptionStartingWith("testWithParams 2"));
-		verify(listener).testIgnored(anyDescriptionStartingWith("testWithParams 3"));
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 1, a"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 1, a"));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 2, b"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 2, b"));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 1, b"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 1, b"));
 
 		verifyNoMoreInteractions(listener);
 	}
 
-	public static class ParameterizedTestCaseWithExpectedException {
+	@Test
+	public void should_report_how_many_duplicate_parameter_sets_were_skipped() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithDuplicateParams.class);
 
-		static Integer[][] someParams = { { 1 }, { 2 }, { 3 } };
+		// when
+		Description description = runner.getDescription().getChildren().get(0);
 
-		@Test(expected = RuntimeException.class)
+		// then
+		assertThat(description.getDisplayName()).isEqualTo("testWithParams (2 duplicate parameter sets skipped)");
+		assertThat(description.getChildren()).hasSize(3);
+	}
+
+	public static class TestCaseWithParamsSharedByMethods {
+
+		static Object[][] someParams = { { "a" }, { "b" }, { "a" } };
+
+		@Test
 		@WithParameters("someParams")
-		public void testWithParams(Integer arg) {
-			if (arg == 1) {
-				throw new RuntimeException("expected exception");
-			}
+		public void testWithParams(String arg) {
+		}
+
+		@Test
+		@WithParameters(value = "someParams", skipDuplicates = true)
+		public void otherTestWithParams(String arg) {
 		}
 	}
 
 	@Test
-	public void should_allow_for_expecting_exceptions() throws Exception {
+	public void should_give_shared_parameters_to_every_method_using_them() throws Exception {
 		// given
-		Parameters runner = new Parameters(ParameterizedTestCaseWithExpectedException.class);
+		Parameters runner = new Parameters(TestCaseWithParamsSharedByMethods.class);
 
 		// when
 		runner.run(notifier);
 
 		// then
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 1"));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 1"));
-
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 2"));
-		verify(listener).testFailure(anyFailureWithDescriptionStartingWithAndExpectedException("testWithParams 2", RuntimeException.class));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 2"));
+		verify(listener, times(2)).testStarted(anyDescriptionStartingWith("testWithParams a"));
+		verify(listener, times(2)).testFinished(anyDescriptionStartingWith("testWithParams a"));
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams b"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams b"));
 
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 3"));
-		verify(listener).testFailure(anyFailureWithDescriptionStartingWithAndExpectedException("testWithParams 3", RuntimeException.class));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 3"));
+		verify(listener).testStarted(anyDescriptionStartingWith("otherTestWithParams a"));
+		verify(listener).testFinished(anyDescriptionStartingWith("otherTestWithParams a"));
+		verify(listener).testStarted(anyDescriptionStartingWith("otherTestWithParams b"));
+		verify(listener).testFinished(anyDescriptionStartingWith("otherTestWithParams b"));
 
 		verifyNoMoreInteractions(listener);
 	}
 
-	public static class ParameterizedTestCaseWithTimeout {
+	public static class TestCaseWithParamsSharedByMethodsWithDifferentTypes {
 
-		static Integer[][] someParams = { { 1 }, { 2 }, { 3 } };
+		static Object[][] someParams = { { 1 } };
 
-		@Test(timeout = 50)
+		@Test
 		@WithParameters("someParams")
-		public void testWithParams(Integer arg) throws Exception {
-			if (arg != 3) {
-				Thread.sleep(51);
-			}
+		public void testWithParams(Integer arg) {
+		}
+
+		@Test
+		@WithParameters("someParams")
+		public void otherTestWithParams(String arg) {
 		}
 	}
 
 	@Test
-	public void should_allow_for_defining_timeout() throws Exception {
+	public void should_validate_shared_parameters_against_each_method_signature() throws Exception {
+		try {
+			new Parameters(TestCaseWithParamsSharedByMethodsWithDifferentTypes.class);
+			fail("InitializationError expected");
+		} catch (InitializationError e) {
+			assertThat(e.getCauses().get(0)).hasMessage("Parameter <1> should be a <class java.lang.String>");
+		}
+	}
+
+	public static class TestCaseWithStringParamsToConvert {
+
+		static List<Object> convertedParams = new ArrayList<Object>();
+
+		static Object[][] someParams = { { "42", "2024-01-01", "EUR", "7", "SECONDS", "5 apples" } };
+
+		@Test
+		@WithParameters(value = "someParams", converters = QuantityConverter.class)
+		public void testWithParams(Integer arg1, LocalDate arg2, Currency arg3, int arg4, TimeUnit arg5, Quantity arg6) {
+			convertedParams.addAll(Arrays.asList(arg1, arg2, arg3, arg4, arg5, arg6.count));
+		}
+	}
+
+	public static class Quantity {
+		final int count;
+
+		Quantity(int count) {
+			this.count = count;
+		}
+	}
+
+	public static class QuantityConverter implements ParameterConverter<Quantity> {
+		public Class<Quantity> getTargetType() {
+			return Quantity.class;
+		}
+
+		public Quantity convert(String value) {
+			return new Quantity(Integer.parseInt(value.split(" ")[0]));
+		}
+	}
+
+	@Test
+	public void should_convert_string_params_to_argument_types() throws Exception {
 		// given
-		Parameters runner = new Parameters(ParameterizedTestCaseWithTimeout.class);
+		Parameters runner = new Parameters(TestCaseWithStringParamsToConvert.class);
 
 		// when
 		runner.run(notifier);
 
 		// then
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 1"));
-		verify(listener).testFailure(anyFailureWithDescriptionStartingWithAndMessage("testWithParams 1", "test timed out after 50 milliseconds"));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 1"));
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 42, 2024-01-01, EUR, 7, SECONDS, 5 apples"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 42, 2024-01-01, EUR, 7, SECONDS, 5 apples"));
+		verifyNoMoreInteractions(listener);
 
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 2"));
-		verify(listener).testFailure(anyFailureWithDescriptionStartingWithAndMessage("testWithParams 2", "test timed out after 50 milliseconds"));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 2"));
+		assertThat(TestCaseWithStringParamsToConvert.convertedParams).containsExactly(42, LocalDate.of(2024, 1, 1),
+				Currency.getInstance("EUR"), 7, TimeUnit.SECONDS, 5);
+	}
 
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 3"));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 3"));
+	public static class TestCaseWithStringParamsFailingConversion {
 
-		verifyNoMoreInteractions(listener);
+		static Object[][] someParams = { { "42" }, { "forty-two" } };
+
+		@Test
+		@WithParameters("someParams")
+		public void testWithParams(Integer arg) {
+		}
 	}
 
 	@Test
-	public void should_allow_for_re_running_a_parameterized_method_with_a_given_parameter_sets() throws Exception {
+	public void should_report_failed_conversion_as_test_failure() throws Exception {
 		// given
-		Parameters runner = new Parameters(TestCaseWithParams.class);
-
-		ParameterizedMethodRunner methodRunner = (ParameterizedMethodRunner) runner.getChildren().get(0);
-		methodRunner.filter(new KeepTestsWithDescriptionStartingWith("testWithParams run2"));
+		Parameters runner = new Parameters(TestCaseWithStringParamsFailingConversion.class);
 
 		// when
 		runner.run(notifier);
 
 		// then
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams run2"));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams run2"));
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 42"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 42"));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams forty-two"));
+		verify(listener).testFailure(anyFailureWithDescriptionStartingWithAndMessage("testWithParams forty-two",
+				"Parameter <forty-two> could not be converted to a <class java.lang.Integer>"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams forty-two"));
 
 		verifyNoMoreInteractions(listener);
 	}
 
-	public static class TestCaseWithAndWithoutParams {
+	public static class TestCaseWithStringParamsNotConvertible {
 
-		static Object[][] runs = { { "run1" }, { "run2" } };
+		static Object[][] someParams = { { "a, b" } };
 
 		@Test
-		@WithParameters("runs")
-		public void testWithParams(String arg) {
+		@WithParameters("someParams")
+		public void testWithParams(List<String> arg) {
+		}
+	}
+
+	@Test
+	public void should_reject_string_param_without_converter_to_argument_type() throws Exception {
+		try {
+			new Parameters(TestCaseWithStringParamsNotConvertible.class);
+			fail("InitializationError expected");
+		} catch (InitializationError e) {
+			assertThat(e.getCauses().get(0)).hasMessage("Parameter <a, b> should be a <interface java.util.List>");
 		}
+	}
+
+	public static class TestCaseWithOffHeapParams {
+
+		static List<Object> receivedParams = new ArrayList<Object>();
+
+		static Object[][] someParams = { { "a", 1 }, { "b", 2 } };
 
 		@Test
-		public void testWithoutParams() {
+		@WithParameters(value = "someParams", offHeap = true)
+		public void testWithParams(String arg1, Integer arg2) {
+			receivedParams.add(arg1);
 		}
 	}
 
 	@Test
-	public void should_allow_for_re_running_a_parameterized_method_with_all_parameter_sets_when_other_test_methods_are_defined() throws Exception {
+	public void should_give_parameters_stored_off_heap_to_test_method() throws Exception {
 		// given
-		Parameters runner = new Parameters(TestCaseWithAndWithoutParams.class);
-
-		runner.filter(new KeepTestsWithDescriptionStartingWith("testWithParams"));
+		Parameters runner = new Parameters(TestCaseWithOffHeapParams.class);
 
 		// when
 		runner.run(notifier);
 
 		// then
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams run1"));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams run1"));
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams a, 1"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams a, 1"));
 
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams run2"));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams run2"));
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams b, 2"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams b, 2"));
 
 		verifyNoMoreInteractions(listener);
+
+		// parameters have been read back from their serialized form
+		assertThat(TestCaseWithOffHeapParams.receivedParams).containsExactly("a", "b");
+		assertThat(TestCaseWithOffHeapParams.receivedParams.get(0)).isNotSameAs(TestCaseWithOffHeapParams.someParams[0][0]);
+	}
+
+	public static class TestCaseWithNonSerializableOffHeapParams {
+
+		static Object[][] someParams = { { new Object() } };
+
+		@Test
+		@WithParameters(value = "someParams", offHeap = true)
+		public void testWithParams(Object arg) {
+		}
 	}
 
 	@Test
-	public void should_allow_for_re_running_a_regular_test_method_when_parameterized_methods_are_defined() throws Exception {
-		// given
-		Parameters runner = new Parameters(TestCaseWithAndWithoutParams.class);
+	public void should_reject_non_serializable_params_to_store_off_heap() throws Exception {
+		try {
+			new Parameters(TestCaseWithNonSerializableOffHeapParams.class);
+			fail("InitializationError expected");
+		} catch (InitializationError e) {
+			assertThat(e.getCauses().get(0)).hasMessage(
+					"Could not store parameters of method \"testWithParams\" off-heap: java.io.NotSerializableException: java.lang.Object");
+		}
+	}
 
-		runner.filter(new KeepTestsWithDescriptionStartingWith("testWithoutParams"));
+	public static class TestCaseWithFlakyParams {
+
+		static Set<Integer> failedOnce = new HashSet<Integer>();
+
+		static Integer[][] someParams = { { 1 }, { 2 }, { 3 } };
+
+		@Test
+		@WithParameters(value = "someParams", retries = 2)
+		public void testWithParams(Integer arg) {
+			if (arg == 2 && failedOnce.add(arg)) {
+				fail("transient failure");
+			}
+		}
+	}
+
+	@Test
+	public void should_retry_failed_parameter_sets_and_report_them_as_flaky() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithFlakyParams.class);
 
 		// when
 		runner.run(notifier);
 
 		// then
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithoutParams"));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithoutParams"));
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 1"));
+		verify(listener).testFinished(argThat(new IsFlakyDescription("testWithParams 1", 0)));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 2"));
+		verify(listener).testFinished(argThat(new IsFlakyDescription("testWithParams 2", 2)));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 3"));
+		verify(listener).testFinished(argThat(new IsFlakyDescription("testWithParams 3", 0)));
 
 		verifyNoMoreInteractions(listener);
 	}
 
+	public static class TestCaseWithParamsToRetryRecordingStarts {
+
+		static Set<String> startedTests = Collections.synchronizedSet(new HashSet<String>());
+
+		static Integer[][] someParams = { { 1 }, { 2 } };
+
+		@Test
+		@WithParameters(value = "someParams", retries = 1)
+		public void testWithParams(Integer arg) {
+			assertThat(startedTests).contains("testWithParams " + arg);
+		}
+	}
+
 	@Test
-	public void should_allow_for_re_running_a_parameterized_method_with_all_sets_when_other_test_methods_are_defined() throws Exception {
+	public void should_report_start_of_parameter_sets_to_retry_before_running_them() throws Exception {
 		// given
-		Parameters runner = new Parameters(TestCaseWithAndWithoutParams.class);
-
-		runner.filter(new KeepTestsWithDescriptionStartingWith("testWithParams"));
+		Parameters runner = new Parameters(TestCaseWithParamsToRetryRecordingStarts.class);
+		notifier.addListener(new RunListener() {
+			@Override
+			public void testStarted(Description description) {
+				TestCaseWithParamsToRetryRecordingStarts.startedTests.add(description.getMethodName());
+			}
+		});
 
 		// when
 		runner.run(notifier);
 
 		// then
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams run1"));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams run1"));
-
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams run2"));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams run2"));
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 1"));
+		verify(listener).testFinished(argThat(new IsFlakyDescription("testWithParams 1", 0)));
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 2"));
+		verify(listener).testFinished(argThat(new IsFlakyDescription("testWithParams 2", 0)));
 
 		verifyNoMoreInteractions(listener);
 	}
 
+	public static class TestCaseWithFailingParamsToRetry {
+
+		static int methodCallCount;
+
+		static Integer[][] someParams = { { 1 }, { 2 }, { 3 } };
+
+		@Test
+		@WithParameters(value = "someParams", retries = 1)
+		public void testWithParams(Integer arg) {
+			methodCallCount++;
+			fail("test failure");
+		}
+	}
+
 	@Test
-	public void should_allow_for_re_running_a_parameterized_method_with_a_given_parameter_sets_when_other_test_methods_are_defined() throws Exception {
+	public void should_not_retry_failed_parameter_sets_beyond_method_budget() throws Exception {
 		// given
-		Parameters runner = new Parameters(TestCaseWithAndWithoutParams.class);
-
-		ParameterizedMethodRunner methodRunner = (ParameterizedMethodRunner) runner.getChildren().get(0);
-		methodRunner.filter(new KeepTestsWithDescriptionStartingWith("testWithParams run2"));
+		Parameters runner = new Parameters(TestCaseWithFailingParamsToRetry.class);
 
 		// when
-		methodRunner.run(notifier);
+		runner.run(notifier);
 
 		// then
-		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams run2"));
-		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams run2"));
+		assertThat(TestCaseWithFailingParamsToRetry.methodCallCount).isEqualTo(4);
+
+		for (int i = 1; i <= 3; i++) {
+			verify(listener).testStarted(anyDescriptionStartingWith("testWithParams " + i));
+			verify(listener).testFailure(anyFailureWithDescriptionStartingWithAndMessage("testWithParams " + i, "test failure"));
+			verify(listener).testFinished(anyDescriptionStartingWith("testWithParams " + i));
+		}
 
 		verifyNoMoreInteractions(listener);
 	}
 
-	private Description anyDescriptionStartingWith(final String expectedNameStart) {
-		return argThat(new IsDescriptionStartingWith(expectedNameStart));
-	}
+	public static class TestCaseWithFailingParamsToRetryWithinRunBudget {
 
-	private Failure anyFailureWithDescriptionStartingWithAndMessage(final String expectedNameStart, String message) {
-		return argThat(new IsFailureWithDescriptionStartingWithAndMessage(expectedNameStart, message));
-	}
+		static int methodCallCount;
 
-	private Failure anyFailureWithDescriptionStartingWithAndExpectedException(String expectedNameStart, Class<RuntimeException> expectedException) {
-		return argThat(new IsFailureWithDescriptionStartingWithAndExpectedException(expectedNameStart, expectedException));
+		static Integer[][] someParams = { { 1 }, { 2 }, { 3 } };
+
+		@Test
+		@WithParameters(value = "someParams", retries = 2)
+		public void testWithParams(Integer arg) {
+			methodCallCount++;
+			fail("test failure");
+		}
 	}
 
-	private static class IsDescriptionStartingWith extends ArgumentMatcher<Description> {
-		private final String expectedNameStart;
+	@Test
+	public void should_not_retry_failed_parameter_sets_beyond_run_budget() throws Exception {
+		// given
+		RetryBudget runBudget = new RetryBudget(1);
+		Parameters runner = new Parameters(TestCaseWithFailingParamsToRetryWithinRunBudget.class, runBudget);
 
-		private IsDescriptionStartingWith(String expectedNameStart) {
-			this.expectedNameStart = expectedNameStart;
+		// when
+		runner.run(notifier);
+
+		// then
+		// one retry out of the two the method could have used
+		assertThat(TestCaseWithFailingParamsToRetryWithinRunBudget.methodCallCount).isEqualTo(4);
+		assertThat(runBudget.consume()).isFalse();
+
+		for (int i = 1; i <= 3; i++) {
+			verify(listener).testStarted(anyDescriptionStartingWith("testWithParams " + i));
+			verify(listener).testFailure(anyFailureWithDescriptionStartingWithAndMessage("testWithParams " + i, "test failure"));
+			verify(listener).testFinished(anyDescriptionStartingWith("testWithParams " + i));
 		}
 
-		@Override
-		public void describeTo(org.hamcrest.Description d) {
-			d.appendText("description starting with \"" + expectedNameStart + "\"");
+		verifyNoMoreInteractions(listener);
+	}
+
+	public static class TestCaseWithSteadyStateParams {
+
+		static Map<Integer, Integer> callCounts = new HashMap<Integer, Integer>();
+
+		static Integer[][] someParams = { { 1 }, { 2 } };
+
+		@Test
+		@WithParameters("someParams")
+		@SteadyState(warmups = 3, iterations = 5)
+		public void testWithParams(Integer arg) {
+			Integer count = callCounts.get(arg);
+			callCounts.put(arg, count == null ? 1 : count + 1);
 		}
+	}
 
-		@Override
-		public boolean matches(Object argument) {
-			return ((Description) argument).getDisplayName().startsWith(expectedNameStart);
+	@Test
+	public void should_run_warm_up_and_measured_iterations_for_each_parameter_set() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithSteadyStateParams.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		assertThat(TestCaseWithSteadyStateParams.callCounts.get(1)).isEqualTo(8);
+		assertThat(TestCaseWithSteadyStateParams.callCounts.get(2)).isEqualTo(8);
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 1"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 1"));
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 2"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 2"));
+
+		verifyNoMoreInteractions(listener);
+	}
+
+	public static class TestCaseWithSteadyStateThreshold {
+
+		static Integer[][] someParams = { { 1 }, { 2 } };
+
+		@Test
+		@WithParameters("someParams")
+		@SteadyState(warmups = 0, iterations = 3, thresholds = "p99 < 50ms")
+		public void testWithParams(Integer arg) throws Exception {
+			if (arg == 2) {
+				Thread.sleep(60);
+			}
+		}
+	}
+
+	@Test
+	public void should_fail_parameter_sets_exceeding_latency_thresholds() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithSteadyStateThreshold.class);
+		ArgumentCaptor<Failure> failure = ArgumentCaptor.forClass(Failure.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 1"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 1"));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 2"));
+		verify(listener).testFailure(failure.capture());
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 2"));
+
+		verifyNoMoreInteractions(listener);
+
+		assertThat(failure.getValue().getDescription().getDisplayName()).startsWith("testWithParams 2");
+		assertThat(failure.getValue().getMessage()).startsWith("p99 of ").contains(" is not below 50.0ms (p50=");
+	}
+
+	@Test
+	public void should_report_latencies_of_every_steady_state_parameter_set() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithSteadyStateThreshold.class);
+		ArgumentCaptor<Description> finished = ArgumentCaptor.forClass(Description.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener, times(2)).testFinished(finished.capture());
+		for (Description description : finished.getAllValues()) {
+			Latencies latencies = description.getAnnotation(Latencies.class);
+			assertThat(latencies).isNotNull();
+			assertThat(latencies.p50()).isGreaterThan(0);
+			assertThat(latencies.p90()).isGreaterThanOrEqualTo(latencies.p50());
+			assertThat(latencies.p99()).isGreaterThanOrEqualTo(latencies.p90());
+			assertThat(latencies.max()).isGreaterThanOrEqualTo(latencies.p99());
+		}
+	}
+
+	public static class TestCaseWithSteadyStateParamsToRetry {
+
+		static int methodCallCount;
+
+		static Integer[][] someParams = { { 1 } };
+
+		@Test
+		@WithParameters(value = "someParams", retries = 1)
+		@SteadyState(warmups = 0, iterations = 1, thresholds = "p99 < 50ms")
+		public void testWithParams(Integer arg) throws Exception {
+			if (++methodCallCount == 1) {
+				Thread.sleep(60);
+			}
+			else {
+				throw new IllegalStateException("no latency to measure");
+			}
+		}
+	}
+
+	@Test
+	public void should_not_report_latencies_of_an_earlier_attempt() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithSteadyStateParamsToRetry.class);
+		ArgumentCaptor<Description> finished = ArgumentCaptor.forClass(Description.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		assertThat(TestCaseWithSteadyStateParamsToRetry.methodCallCount).isEqualTo(2);
+		verify(listener).testFinished(finished.capture());
+		assertThat(finished.getValue().getAnnotation(Latencies.class)).isNull();
+	}
+
+	public static class TestCaseWithInvalidSteadyStateThreshold {
+
+		static Integer[][] someParams = { { 1 } };
+
+		@Test
+		@WithParameters("someParams")
+		@SteadyState(thresholds = "p99 under 2ms")
+		public void testWithParams(Integer arg) {
+		}
+	}
+
+	@Test
+	public void should_reject_invalid_latency_threshold() throws Exception {
+		try {
+			new Parameters(TestCaseWithInvalidSteadyStateThreshold.class);
+			fail("InitializationError expected");
+		} catch (InitializationError e) {
+			assertThat(e.getCauses().get(0)).hasMessage(
+					"Invalid @SteadyState on method \"testWithParams\": Threshold \"p99 under 2ms\" should look like \"p99 < 2ms\"");
+		}
+	}
+
+	public static class TestCaseWithForkedParams {
+
+		static Integer[][] someParams = { { 1 }, { 2 }, { 3 }, { 4 } };
+
+		@Test
+		@WithParameters("someParams")
+		@Forked(rowsPerJvm = 2)
+		public void testWithParams(Integer arg) {
+			// tells which JVM ran the parameter set
+			fail(ManagementFactory.getRuntimeMXBean().getName());
+		}
+	}
+
+	@Test
+	public void should_run_parameter_sets_in_forked_jvms_recycled_after_given_count() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithForkedParams.class);
+		ArgumentCaptor<Failure> failures = ArgumentCaptor.forClass(Failure.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		for (int i = 1; i <= 4; i++) {
+			verify(listener).testStarted(anyDescriptionStartingWith("testWithParams " + i));
+			verify(listener).testFinished(anyDescriptionStartingWith("testWithParams " + i));
+		}
+		verify(listener, times(4)).testFailure(failures.capture());
+		verifyNoMoreInteractions(listener);
+
+		Map<String, String> jvmsByParam = new HashMap<String, String>();
+		for (Failure failure : failures.getAllValues()) {
+			jvmsByParam.put(failure.getDescription().getDisplayName().substring(0, "testWithParams 1".length()), failure.getMessage());
+		}
+		assertThat(jvmsByParam.get("testWithParams 1")).isEqualTo(jvmsByParam.get("testWithParams 2"));
+		assertThat(jvmsByParam.get("testWithParams 3")).isEqualTo(jvmsByParam.get("testWithParams 4"));
+		assertThat(jvmsByParam.get("testWithParams 1")).isNotEqualTo(jvmsByParam.get("testWithParams 3"));
+		assertThat(jvmsByParam.values()).excludes(ManagementFactory.getRuntimeMXBean().getName());
+	}
+
+	public static class TestCaseWithForkedRandomParams {
+
+		static Object[][] someParams = { { UUID.randomUUID().toString() } };
+
+		static String setUp;
+
+		@BeforeClass
+		public static void setUp() {
+			setUp = "done";
+		}
+
+		@Test
+		@WithParameters("someParams")
+		@Forked
+		public void testWithParams(String arg) {
+			fail(setUp + " " + arg);
+		}
+	}
+
+	@Test
+	public void should_run_in_forked_jvms_the_parameter_sets_of_the_current_jvm_after_class_setup() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithForkedRandomParams.class);
+		ArgumentCaptor<Failure> failure = ArgumentCaptor.forClass(Failure.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener).testFailure(failure.capture());
+		assertThat(failure.getValue().getMessage()).isEqualTo("done " + TestCaseWithForkedRandomParams.someParams[0][0]);
+	}
+
+	public static class TestCaseWithForkedParamsExceedingHeap {
+
+		static Integer[][] someParams = { { 1 }, { 2 } };
+
+		@Test
+		@WithParameters("someParams")
+		@Forked(maxHeapMb = 1)
+		public void testWithParams(Integer arg) {
+			fail(ManagementFactory.getRuntimeMXBean().getName());
+		}
+	}
+
+	@Test
+	public void should_replace_forked_jvms_using_more_heap_than_allowed() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithForkedParamsExceedingHeap.class);
+		ArgumentCaptor<Failure> failures = ArgumentCaptor.forClass(Failure.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener, times(2)).testFailure(failures.capture());
+		assertThat(failures.getAllValues().get(0).getMessage()).isNotEqualTo(failures.getAllValues().get(1).getMessage());
+	}
+
+	public abstract static class ForkedTestCaseBase {
+
+		@Test
+		@WithParameters("someParams")
+		@Forked
+		public void testWithParams(Integer arg) {
+			assertThat(getClass()).isEqualTo(TestCaseInheritingForkedMethod.class);
+		}
+	}
+
+	public static class TestCaseInheritingForkedMethod extends ForkedTestCaseBase {
+
+		static Integer[][] someParams = { { 1 }, { 2 } };
+	}
+
+	@Test
+	public void should_run_inherited_forked_method_on_the_test_class() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseInheritingForkedMethod.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 1"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 1"));
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 2"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 2"));
+
+		verifyNoMoreInteractions(listener);
+	}
+
+	public static class TestCaseWithForkedParamsExitingJvm {
+
+		static Integer[][] someParams = { { 1 }, { 2 } };
+
+		@Test
+		@WithParameters("someParams")
+		@Forked
+		public void testWithParams(Integer arg) {
+			if (arg == 1) {
+				System.exit(1);
+			}
+		}
+	}
+
+	@Test
+	public void should_report_failure_and_replace_forked_jvm_exiting_while_running_parameter_set() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithForkedParamsExitingJvm.class);
+		ArgumentCaptor<Failure> failure = ArgumentCaptor.forClass(Failure.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 1"));
+		verify(listener).testFailure(failure.capture());
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 1"));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 2"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 2"));
+
+		verifyNoMoreInteractions(listener);
+
+		assertThat(failure.getValue().getDescription().getDisplayName()).startsWith("testWithParams 1");
+		assertThat(failure.getValue().getMessage()).isEqualTo("Forked JVM failed to run parameter set of method \"testWithParams\"");
+	}
+
+	public static class TestCaseWithConcurrentParams {
+
+		static AtomicInteger runningCount = new AtomicInteger();
+		static AtomicInteger maxRunningCount = new AtomicInteger();
+
+		static Integer[][] someParams = { { 1 }, { 2 }, { 3 }, { 4 }, { 5 }, { 6 } };
+
+		@Test
+		@WithParameters(value = "someParams", concurrency = 3)
+		public void testWithParams(Integer arg) throws Exception {
+			int running = runningCount.incrementAndGet();
+			synchronized (maxRunningCount) {
+				maxRunningCount.set(Math.max(running, maxRunningCount.get()));
+			}
+			Thread.sleep(50);
+			runningCount.decrementAndGet();
+
+			if (arg == 4) {
+				fail("test failure");
+			}
+		}
+	}
+
+	@Test
+	public void should_run_parameter_sets_concurrently_up_to_the_given_concurrency() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithConcurrentParams.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		assertThat(TestCaseWithConcurrentParams.maxRunningCount.get()).isGreaterThan(1).isLessThanOrEqualTo(3);
+
+		for (int i = 1; i <= 6; i++) {
+			verify(listener).testStarted(anyDescriptionStartingWith("testWithParams " + i));
+			verify(listener).testFinished(anyDescriptionStartingWith("testWithParams " + i));
+		}
+		verify(listener).testFailure(anyFailureWithDescriptionStartingWithAndMessage("testWithParams 4", "test failure"));
+
+		verifyNoMoreInteractions(listener);
+	}
+
+	public static class TestCaseWithConcurrentParamsRecordingThreads {
+
+		static Set<Boolean> virtualThreadUsage = Collections.synchronizedSet(new HashSet<Boolean>());
+
+		static Integer[][] someParams = { { 1 }, { 2 }, { 3 } };
+
+		@Test
+		@WithParameters(value = "someParams", concurrency = 2)
+		public void testWithParams(Integer arg) {
+			virtualThreadUsage.add(isVirtual(Thread.currentThread()));
+		}
+	}
+
+	@Test
+	public void should_run_concurrent_parameter_sets_on_virtual_threads_when_the_jvm_supports_them() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithConcurrentParamsRecordingThreads.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		assertThat(TestCaseWithConcurrentParamsRecordingThreads.virtualThreadUsage).containsOnly(supportsVirtualThreads());
+	}
+
+	@Test
+	public void should_load_row_threads_for_java_21_from_the_multi_release_jar_only() throws Exception {
+		// given
+		String location = RowThreads.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+		boolean loadedFromJar = location.endsWith(".jar");
+
+		// when
+		String variant = RowThreads.variant();
+
+		// then
+		assertThat(variant).isEqualTo(loadedFromJar && supportsVirtualThreads() ? "java21" : "baseline");
+	}
+
+	private static boolean supportsVirtualThreads() {
+		try {
+			Thread.class.getMethod("ofVirtual").invoke(null);
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	private static boolean isVirtual(Thread thread) {
+		try {
+			return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	public static class TestCaseWithInvalidConcurrency {
+
+		static Integer[][] someParams = { { 1 } };
+
+		@Test
+		@WithParameters(value = "someParams", concurrency = 0)
+		public void testWithParams(Integer arg) {
+		}
+	}
+
+	@Test
+	public void should_reject_concurrency_lower_than_one() throws Exception {
+		try {
+			new Parameters(TestCaseWithInvalidConcurrency.class);
+			fail("InitializationError expected");
+		} catch (InitializationError e) {
+			assertThat(e.getCauses().get(0)).hasMessage("Concurrency of method \"testWithParams\" must be at least 1");
+		}
+	}
+
+	public static class TestCaseWithIgnoredParameterizedTest {
+
+		static Integer[][] someParams = { { 1 }, { 2 }, { 3 } };
+
+		@Test
+		@Ignore
+		@WithParameters("someParams")
+		public void testWithParams(Integer arg) {
+			if (arg == 2) {
+				fail("test failure");
+			}
+		}
+	}
+
+	@Test
+	public void should_report_ignored_parameterized_tests() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithIgnoredParameterizedTest.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener).testIgnored(anyDescriptionStartingWith("testWithParams 1"));
+		verify(listener).testIgnored(anyDescriptionStartingWith("testWithParams 2"));
+		verify(listener).testIgnored(anyDescriptionStartingWith("testWithParams 3"));
+
+		verifyNoMoreInteractions(listener);
+	}
+
+	public static class ParameterizedTestCaseWithExpectedException {
+
+		static Integer[][] someParams = { { 1 }, { 2 }, { 3 } };
+
+		@Test(expected = RuntimeException.class)
+		@WithParameters("someParams")
+		public void testWithParams(Integer arg) {
+			if (arg == 1) {
+				throw new RuntimeException("expected exception");
+			}
+		}
+	}
+
+	@Test
+	public void should_allow_for_expecting_exceptions() throws Exception {
+		// given
+		Parameters runner = new Parameters(ParameterizedTestCaseWithExpectedException.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 1"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 1"));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 2"));
+		verify(listener).testFailure(anyFailureWithDescriptionStartingWithAndExpectedException("testWithParams 2", RuntimeException.class));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 2"));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 3"));
+		verify(listener).testFailure(anyFailureWithDescriptionStartingWithAndExpectedException("testWithParams 3", RuntimeException.class));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 3"));
+
+		verifyNoMoreInteractions(listener);
+	}
+
+	public static class ParameterizedTestCaseWithTimeout {
+
+		static Integer[][] someParams = { { 1 }, { 2 }, { 3 } };
+
+		@Test(timeout = 50)
+		@WithParameters("someParams")
+		public void testWithParams(Integer arg) throws Exception {
+			if (arg != 3) {
+				Thread.sleep(51);
+			}
+		}
+	}
+
+	@Test
+	public void should_allow_for_defining_timeout() throws Exception {
+		// given
+		Parameters runner = new Parameters(ParameterizedTestCaseWithTimeout.class);
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 1"));
+		verify(listener).testFailure(anyFailureWithDescriptionStartingWithAndMessage("testWithParams 1", "test timed out after 50 milliseconds"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 1"));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 2"));
+		verify(listener).testFailure(anyFailureWithDescriptionStartingWithAndMessage("testWithParams 2", "test timed out after 50 milliseconds"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 2"));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams 3"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams 3"));
+
+		verifyNoMoreInteractions(listener);
+	}
+
+	@Test
+	public void should_allow_for_re_running_a_parameterized_method_with_a_given_parameter_sets() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithParams.class);
+
+		ParameterizedMethodRunner methodRunner = (ParameterizedMethodRunner) runner.getChildren().get(0);
+		methodRunner.filter(new KeepTestsWithDescriptionStartingWith("testWithParams run2"));
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams run2"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams run2"));
+
+		verifyNoMoreInteractions(listener);
+	}
+
+	public static class TestCaseWithAndWithoutParams {
+
+		static Object[][] runs = { { "run1" }, { "run2" } };
+
+		@Test
+		@WithParameters("runs")
+		public void testWithParams(String arg) {
+		}
+
+		@Test
+		public void testWithoutParams() {
+		}
+	}
+
+	@Test
+	public void should_allow_for_re_running_a_parameterized_method_with_all_parameter_sets_when_other_test_methods_are_defined() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithAndWithoutParams.class);
+
+		runner.filter(new KeepTestsWithDescriptionStartingWith("testWithParams"));
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams run1"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams run1"));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams run2"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams run2"));
+
+		verifyNoMoreInteractions(listener);
+	}
+
+	@Test
+	public void should_allow_for_re_running_a_regular_test_method_when_parameterized_methods_are_defined() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithAndWithoutParams.class);
+
+		runner.filter(new KeepTestsWithDescriptionStartingWith("testWithoutParams"));
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithoutParams"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithoutParams"));
+
+		verifyNoMoreInteractions(listener);
+	}
+
+	@Test
+	public void should_allow_for_re_running_a_parameterized_method_with_all_sets_when_other_test_methods_are_defined() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithAndWithoutParams.class);
+
+		runner.filter(new KeepTestsWithDescriptionStartingWith("testWithParams"));
+
+		// when
+		runner.run(notifier);
+
+		// then
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams run1"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams run1"));
+
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams run2"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams run2"));
+
+		verifyNoMoreInteractions(listener);
+	}
+
+	@Test
+	public void should_allow_for_re_running_a_parameterized_method_with_a_given_parameter_sets_when_other_test_methods_are_defined() throws Exception {
+		// given
+		Parameters runner = new Parameters(TestCaseWithAndWithoutParams.class);
+
+		ParameterizedMethodRunner methodRunner = (ParameterizedMethodRunner) runner.getChildren().get(0);
+		methodRunner.filter(new KeepTestsWithDescriptionStartingWith("testWithParams run2"));
+
+		// when
+		methodRunner.run(notifier);
+
+		// then
+		verify(listener).testStarted(anyDescriptionStartingWith("testWithParams run2"));
+		verify(listener).testFinished(anyDescriptionStartingWith("testWithParams run2"));
+
+		verifyNoMoreInteractions(listener);
+	}
+
+	private Description anyDescriptionStartingWith(final String expectedNameStart) {
+		return argThat(new IsDescriptionStartingWith(expectedNameStart));
+	}
+
+	private Failure anyFailureWithDescriptionStartingWithAndMessage(final String expectedNameStart, String message) {
+		return argThat(new IsFailureWithDescriptionStartingWithAndMessage(expectedNameStart, message));
+	}
+
+	private Failure anyFailureWithDescriptionStartingWithAndExpectedException(String expectedNameStart, Class<RuntimeException> expectedException) {
+		return argThat(new IsFailureWithDescriptionStartingWithAndExpectedException(expectedNameStart, expectedException));
+	}
+
+	private static class IsDescriptionStartingWith extends ArgumentMatcher<Description> {
+		private final String expectedNameStart;
+
+		private IsDescriptionStartingWith(String expectedNameStart) {
+			this.expectedNameStart = expectedNameStart;
+		}
+
+		@Override
+		public void describeTo(org.hamcrest.Description d) {
+			d.appendText("description starting with \"" + expectedNameStart + "\"");
+		}
+
+		@Override
+		public boolean matches(Object argument) {
+			return ((Description) argument).getDisplayName().startsWith(expectedNameStart);
+		}
+	}
+
+	private static class IsFlakyDescription extends ArgumentMatcher<Description> {
+		private final IsDescriptionStartingWith matcher;
+		private final int expectedAttempts;
+
+		// 0 attempts stands for a description which is not flaky
+		private IsFlakyDescription(String expectedNameStart, int expectedAttempts) {
+			matcher = new IsDescriptionStartingWith(expectedNameStart);
+			this.expectedAttempts = expectedAttempts;
+		}
+
+		@Override
+		public void describeTo(org.hamcrest.Description d) {
+			d.appendDescriptionOf(matcher);
+			d.appendText(expectedAttempts == 0 ? " not flaky" : " flaky after " + expectedAttempts + " attempts");
+		}
+
+		@Override
+		public boolean matches(Object argument) {
+			Flaky flaky = ((Description) argument).getAnnotation(Flaky.class);
+			int attempts = flaky == null ? 0 : flaky.attempts();
+			return matcher.matches(argument) && attempts == expectedAttempts;
 		}
 	}
 
@@ -0,0 +1,262 @@
+package ndemengel;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectMethod;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectUniqueId;
+import static org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder.request;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.reporting.ReportEntry;
+import org.junit.platform.testkit.engine.EngineExecutionResults;
+import org.junit.platform.testkit.engine.EngineTestKit;
+import org.junit.platform.testkit.engine.Event;
+import org.junit.runner.RunWith;
+
+public class ParametersTestEngineTest {
+
+	ParametersTestEngine engine = new ParametersTestEngine();
+
+	public static class TestCaseWithAndWithoutParams {
+
+		static Integer[][] someParams = { { 1 }, { 2 }, { 3 } };
+
+		@Test
+		@WithParameters("someParams")
+		public void testWithParams(Integer arg) {
+			if (arg == 2) {
+				fail("test failure");
+			}
+		}
+
+		@Test
+		public void testWithoutParams() {
+		}
+
+		@Test
+		@Ignore
+		public void ignoredTest() {
+		}
+	}
+
+	public static class RegularTestCase {
+		@Test
+		public void regularTest() {
+		}
+	}
+
+	@Test
+	public void should_only_discover_classes_with_parameterized_test_methods() throws Exception {
+		// when
+		TestDescriptor root = engine.discover(request().selectors(selectClass(RegularTestCase.class),
+				selectClass(TestCaseWithAndWithoutParams.class)).build(), UniqueId.forEngine(engine.getId()));
+
+		// then
+		assertThat(root.getChildren()).hasSize(1);
+		assertThat(root.getChildren().iterator().next().getDisplayName()).isEqualTo("TestCaseWithAndWithoutParams");
+	}
+
+	@RunWith(Parameters.class)
+	public static class TestCaseRunWithParameters {
+
+		static Integer[][] someParams = { { 1 } };
+
+		@Test
+		@WithParameters("someParams")
+		public void testWithParams(Integer arg) {
+		}
+	}
+
+	@Test
+	public void should_leave_classes_run_with_a_runner_to_that_runner() throws Exception {
+		// when
+		TestDescriptor root = engine.discover(request().selectors(selectClass(TestCaseRunWithParameters.class),
+				selectMethod(TestCaseRunWithParameters.class, "testWithParams", "java.lang.Integer")).build(),
+				UniqueId.forEngine(engine.getId()));
+
+		// then
+		assertThat(root.getChildren()).isEmpty();
+	}
+
+	@Test
+	public void should_not_create_parameter_sets_at_discovery() throws Exception {
+		// when
+		TestDescriptor root = engine.discover(request().selectors(selectMethod(TestCaseWithAndWithoutParams.class, "testWithParams",
+				"java.lang.Integer")).build(), UniqueId.forEngine(engine.getId()));
+
+		// then
+		TestDescriptor classDescriptor = root.getChildren().iterator().next();
+		assertThat(classDescriptor.getChildren()).hasSize(1);
+
+		TestDescriptor methodDescriptor = classDescriptor.getChildren().iterator().next();
+		assertThat(methodDescriptor.isContainer()).isTrue();
+		assertThat(methodDescriptor.getChildren()).isEmpty();
+	}
+
+	@Test
+	public void should_report_parameter_sets_as_dynamic_tests() throws Exception {
+		// when
+		EngineExecutionResults results = EngineTestKit.engine(engine).selectors(selectClass(TestCaseWithAndWithoutParams.class))
+				.execute();
+
+		// then
+		assertThat(results.allEvents().dynamicallyRegistered().count()).isEqualTo(3);
+		assertThat(results.testEvents().succeeded().count()).isEqualTo(3);
+		assertThat(results.testEvents().failed().count()).isEqualTo(1);
+		assertThat(results.testEvents().skipped().count()).isEqualTo(1);
+
+		assertThat(results.testEvents().failed().list().get(0).getTestDescriptor().getDisplayName()).isEqualTo("testWithParams 2");
+	}
+
+	@Test
+	public void should_run_the_whole_method_of_a_parameter_set_selected_by_unique_id() throws Exception {
+		// given
+		UniqueId parameterSetId = UniqueId.forEngine(engine.getId()).append("class", TestCaseWithAndWithoutParams.class.getName())
+				.append("method", "testWithParams(java.lang.Integer)").append("parameter-set", "#1");
+
+		// when
+		EngineExecutionResults results = EngineTestKit.engine(engine).selectors(selectUniqueId(parameterSetId)).execute();
+
+		// then
+		assertThat(results.allEvents().dynamicallyRegistered().count()).isEqualTo(3);
+		assertThat(results.testEvents().succeeded().count()).isEqualTo(2);
+		assertThat(results.testEvents().failed().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void should_use_unique_ids_that_select_the_same_method_again() throws Exception {
+		// given
+		TestDescriptor root = engine.discover(request().selectors(selectMethod(TestCaseWithAndWithoutParams.class, "testWithParams",
+				"java.lang.Integer")).build(), UniqueId.forEngine(engine.getId()));
+		UniqueId methodId = root.getChildren().iterator().next().getChildren().iterator().next().getUniqueId();
+
+		// when
+		TestDescriptor rediscovered = engine.discover(request().selectors(selectUniqueId(methodId)).build(),
+				UniqueId.forEngine(engine.getId()));
+
+		// then
+		TestDescriptor methodDescriptor = rediscovered.getChildren().iterator().next().getChildren().iterator().next();
+		assertThat(methodDescriptor.getUniqueId()).isEqualTo(methodId);
+	}
+
+	public static class TestCaseWithInvalidParams {
+
+		static Integer[][] someParams = { { 1, 2 } };
+
+		@Test
+		@WithParameters("someParams")
+		public void testWithParams(Integer arg) {
+		}
+	}
+
+	@Test
+	public void should_not_read_parameters_at_discovery() throws Exception {
+		// when
+		TestDescriptor root = engine.discover(request().selectors(selectClass(TestCaseWithInvalidParams.class)).build(),
+				UniqueId.forEngine(engine.getId()));
+
+		// then
+		assertThat(root.getChildren()).hasSize(1);
+
+		// when
+		EngineExecutionResults results = EngineTestKit.engine(engine).selectors(selectClass(TestCaseWithInvalidParams.class))
+				.execute();
+
+		// then
+		assertThat(results.containerEvents().failed().count()).isEqualTo(1);
+	}
+
+	public static class TestCaseWithFlakyParams {
+
+		static boolean failed;
+
+		static Integer[][] someParams = { { 1 }, { 2 } };
+
+		@Test
+		@WithParameters(value = "someParams", retries = 1)
+		public void testWithParams(Integer arg) {
+			if (arg == 2 && !failed) {
+				failed = true;
+				fail("transient failure");
+			}
+		}
+	}
+
+	@Test
+	public void should_report_flaky_parameter_sets() throws Exception {
+		// when
+		EngineExecutionResults results = EngineTestKit.engine(engine).selectors(selectClass(TestCaseWithFlakyParams.class)).execute();
+
+		// then
+		assertThat(results.testEvents().succeeded().count()).isEqualTo(2);
+		assertThat(results.allEvents().reportingEntryPublished().count()).isEqualTo(1);
+	}
+
+	public static class TestCaseWithSteadyStateParams {
+
+		static Integer[][] someParams = { { 1 }, { 2 } };
+
+		@Test
+		@WithParameters("someParams")
+		@SteadyState(warmups = 0, iterations = 3, thresholds = "p99 < 50ms")
+		public void testWithParams(Integer arg) throws Exception {
+			if (arg == 2) {
+				Thread.sleep(60);
+			}
+		}
+	}
+
+	@Test
+	public void should_report_latencies_of_passing_and_failing_steady_state_parameter_sets() throws Exception {
+		// when
+		EngineExecutionResults results = EngineTestKit.engine(engine).selectors(selectClass(TestCaseWithSteadyStateParams.class))
+				.execute();
+
+		// then
+		assertThat(results.testEvents().succeeded().count()).isEqualTo(1);
+		assertThat(results.testEvents().failed().count()).isEqualTo(1);
+		assertThat(results.allEvents().reportingEntryPublished().count()).isEqualTo(2);
+		for (Event event : results.allEvents().reportingEntryPublished().list()) {
+			ReportEntry entry = event.getPayload(ReportEntry.class).get();
+			assertThat(entry.getKeyValuePairs().get("latencies")).startsWith("p50=").contains(", max=");
+		}
+	}
+
+	public static class TestCaseWithParallelParams {
+
+		static AtomicInteger runningCount = new AtomicInteger();
+		static AtomicInteger maxRunningCount = new AtomicInteger();
+
+		static Integer[][] someParams = { { 1 }, { 2 }, { 3 }, { 4 } };
+
+		@Test
+		@WithParameters("someParams")
+		public void testWithParams(Integer arg) throws Exception {
+			int running = runningCount.incrementAndGet();
+			synchronized (maxRunningCount) {
+				maxRunningCount.set(Math.max(running, maxRunningCount.get()));
+			}
+			Thread.sleep(100);
+			runningCount.decrementAndGet();
+		}
+	}
+
+	@Test
+	public void should_run_parameter_sets_in_parallel_when_enabled() throws Exception {
+		// when
+		EngineExecutionResults results = EngineTestKit.engine(engine).selectors(selectClass(TestCaseWithParallelParams.class))
+				.configurationParameter(ParametersTestEngine.PARALLEL_EXECUTION_ENABLED, "true")
+				.configurationParameter(ParametersTestEngine.PARALLEL_CONFIG_PREFIX + "strategy", "fixed")
+				.configurationParameter(ParametersTestEngine.PARALLEL_CONFIG_PREFIX + "fixed.parallelism", "4").execute();
+
+		// then
+		assertThat(results.testEvents().succeeded().count()).isEqualTo(4);
+		assertThat(TestCaseWithParallelParams.maxRunningCount.get()).isGreaterThan(1);
+	}
+}